@@ -1,5 +1,6 @@
 package com.airtribe.meditrack;
 
+import com.airtribe.meditrack.constants.Constants;
 import com.airtribe.meditrack.entity.Appointment;
 import com.airtribe.meditrack.entity.Doctor;
 import com.airtribe.meditrack.entity.Patient;
@@ -9,13 +10,16 @@ import com.airtribe.meditrack.service.AppointmentService;
 import com.airtribe.meditrack.service.DoctorService;
 import com.airtribe.meditrack.service.PatientService;
 import com.airtribe.meditrack.util.DataStore; // Import DataStore
+import com.airtribe.meditrack.util.DiskPatientStore;
+import com.airtribe.meditrack.util.FlushScheduler;
+import com.airtribe.meditrack.util.PatientRowIndex;
 import com.airtribe.meditrack.util.SeedData;
 import com.airtribe.meditrack.util.Validator;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.HashSet;
 import java.util.Scanner;
 
 public class Main {
@@ -25,15 +29,21 @@ public class Main {
     private static final AppointmentService appointmentService = new AppointmentService(doctorService, patientService);
 
     // DataStore instances for saving/loading
-    private static final DataStore<Doctor> doctorStore = new DataStore<>();
-    private static final DataStore<Patient> patientStore = new DataStore<>();
-    private static final DataStore<Appointment> appointmentStore = new DataStore<>();
+    private static final DataStore<Doctor> doctorStore = new DataStore<>(Doctor.class);
+    private static final DataStore<Patient> patientStore = new DataStore<>(Patient.class);
+    private static final DataStore<Appointment> appointmentStore = new DataStore<>(Appointment.class);
+    // Edits are saved in the background so the menu never waits on disk
+    private static final FlushScheduler flushScheduler = new FlushScheduler("meditrack-flush", Main::flushChanges,
+            Constants.FLUSH_DELAY_MS, Constants.FLUSH_RETRY_DELAY_MS);
 
     public static void main(String[] args) {
         System.out.println("Initializing MediTrack System...");
+        // Bookings are journaled (group-committed) as they happen instead of waiting for Exit & Save
+        appointmentService.setAppointmentStore(appointmentStore);
 
         // 1. INITIALIZE DATA (CSV with Seed Fallback)
         initializeData();
+        flushScheduler.installShutdownHook();
 
         // 2. Main Menu Loop
         boolean running = true;
@@ -61,7 +71,7 @@ public class Main {
                 switch (choice) {
                     case 1:
                         printHeader("ALL PATIENTS");
-                        patientService.getPatients().forEach(p -> System.out.println(p.getName() + " (MRN: " + p.getMrn() + ")"));
+                        patientService.forEachPatient(p -> System.out.println(p.getName() + " (MRN: " + p.getMrn() + ")"));
                         break;
                     case 2:
                         handleCreatePatient();
@@ -85,7 +95,9 @@ public class Main {
                         break;
                     case 8:
                         running = false;
+                        stopBackgroundSaves();
                         saveData(); // Save before exit
+                        closePatientStore();
                         System.out.println("Exiting System. Goodbye!");
                         break;
                     default:
@@ -102,41 +114,121 @@ public class Main {
         try {
             System.out.print("Loading data from CSV... ");
 
-            // Load from CSV
-            HashSet<Doctor> docs = DataStore.loadDoctors();
-            HashSet<Patient> pats = DataStore.loadPatients();
-            HashSet<Appointment> appts = DataStore.loadAppointments();
+            String patientMode = System.getProperty(Constants.PATIENT_STORE_PROPERTY, "");
+            if (Constants.PATIENT_STORE_DISK.equalsIgnoreCase(patientMode)) {
+                patientService.useDiskStore(new DiskPatientStore(Paths.get(Constants.PATIENT_STORE_BASE), Constants.PATIENT_HOT_SET_CAPACITY));
+            }
+            // A populated disk store already is the patient registry; an empty one imports the patient table once
+            boolean patientsLoaded = hasPatientRegistry();
+            if (Constants.PATIENT_STORE_LAZY.equalsIgnoreCase(patientMode)) {
+                PatientRowIndex patientRows = DataStore.indexPatients();
+                if (patientRows != null) {
+                    DataStore.loadPatientChanges(patientService.lazyLoader(patientRows));
+                    patientsLoaded = true;
+                }
+            }
+
+            // Load from CSV (all three files concurrently), streaming rows straight into the services
+            DataStore.loadAll(doctorService.bulkLoader(), patientsLoaded ? null : patientService.bulkLoader(),
+                    appointmentService.bulkLoader());
+            int docs = doctorService.getDoctors().size();
+            int pats = patientService.patientCount();
 
-            if (docs.isEmpty() || pats.isEmpty()) {
+            if (docs == 0 || pats == 0) {
                 System.out.println("CSV Empty or Missing. Loading Seed Data...");
-                SeedData.load(doctorService, patientService);
+                // Appointments cannot outlive their doctors; a loaded patient table is kept as it is
+                if (docs == 0) appointmentService.setAppointments(null);
+                seedEmptyTables();
 
                 saveData();
             } else {
-                doctorService.setDoctors(docs);
-                patientService.setPatients(pats);
-                appointmentService.setAppointments(appts);
-                System.out.println("SUCCESS. Loaded " + docs.size() + " Doctors and " + pats.size() + " Patients from CSV.");
+                System.out.println("SUCCESS. Loaded " + docs + " Doctors and " + pats + " Patients from CSV.");
             }
         } catch (IOException e) {
             System.out.println("Error loading CSV: " + e.getMessage());
             System.out.println("Falling back to Seed Data.");
-            SeedData.load(doctorService, patientService);
+            clearServices();
+            seedEmptyTables();
         }
     }
 
+    // Drops whatever a partial load left behind, so seeding starts from empty services. A populated disk
+    // store was not loaded from CSV at all; it is the patient registry and survives any load fallback.
+    private static void clearServices() {
+        doctorService.setDoctors(null);
+        if (!hasPatientRegistry()) patientService.setPatients(null);
+        appointmentService.setAppointments(null);
+    }
+
+    private static boolean hasPatientRegistry() {
+        return patientService.getDiskStore() != null && patientService.patientCount() > 0;
+    }
+
+    private static void seedEmptyTables() {
+        System.out.println("--- Seeding Data ---");
+        if (doctorService.getDoctors().isEmpty()) SeedData.loadDoctors(doctorService);
+        if (patientService.patientCount() == 0) SeedData.loadPatients(patientService);
+    }
+
     private static void saveData() {
         try {
             System.out.print("Saving data to CSV... ");
+            // Pending edits reach the log first, so a failed snapshot write cannot lose them
+            doctorStore.flush(doctorService.getChangeTracker());
             doctorStore.save(doctorService.getDoctors());
-            patientStore.save(patientService.getPatients());
-            // appointmentStore.save(new HashSet<>(appointmentService.getAllAppointments())); // Uncomment if you want to save appointments
+            DiskPatientStore disk = patientService.getDiskStore();
+            if (disk != null) {
+                disk.sync();
+            } else if (patientService.hasUnloadedPatients()) {
+                // Rewriting the snapshot would parse every lazily loaded patient; logging the edits is enough
+                patientStore.flush(patientService.getChangeTracker());
+                patientStore.compactIfNeeded(patientService::getPatients);
+            } else {
+                patientStore.flush(patientService.getChangeTracker());
+                patientStore.save(patientService.getPatients());
+            }
+            appointmentStore.save(appointmentService.getAppointments());
+            DataStore.closeJournals();
             System.out.println("DONE.");
         } catch (IOException e) {
             System.out.println("FAILED to save data: " + e.getMessage());
         }
     }
 
+    private static void closePatientStore() {
+        DiskPatientStore disk = patientService.getDiskStore();
+        if (disk == null) return;
+        try {
+            disk.close();
+        } catch (IOException e) {
+            System.out.println("Warning: patient store not closed cleanly: " + e.getMessage());
+        }
+    }
+
+    // Finishes pending background saves; the exit snapshot still runs if the last flush fails
+    private static void stopBackgroundSaves() {
+        try {
+            flushScheduler.close();
+        } catch (IOException e) {
+            System.out.println("Warning: background save failed: " + e.getMessage());
+        }
+    }
+
+    // Runs on the flush scheduler's thread: appends tracked edits to the logs and compacts large ones
+    private static void flushChanges() throws IOException {
+        doctorStore.flush(doctorService.getChangeTracker());
+        doctorStore.compactIfNeeded(doctorService.getDoctors());
+        DiskPatientStore disk = patientService.getDiskStore();
+        if (disk != null) {
+            disk.sync();
+            disk.compactIfNeeded();
+        } else {
+            patientStore.flush(patientService.getChangeTracker());
+            patientStore.compactIfNeeded(patientService::getPatients);
+        }
+        appointmentStore.compactIfNeeded(appointmentService.getAppointments());
+    }
+
     // --- Scenario 1: Smart Booking  ---
     private static void handleSmartBooking() {
         printHeader("SMART BOOKING");
@@ -163,8 +255,8 @@ public class Main {
             System.out.println("   Doctor: " + app.getDoctorId());
             System.out.println("   Time:   " + app.getTimeSlot());
 
-            // Auto-save after booking (Optional)
-            // saveData();
+            // Already durable in the appointment log; compaction happens in the background
+            flushScheduler.requestFlush();
 
         } catch (Exception e) {
             System.out.println("❌ BOOKING FAILED: " + e.getMessage());
@@ -193,6 +285,7 @@ public class Main {
 
             System.out.println("✅ AUTO-MATCH SUCCESS! Assigned to Dr. " + app.getDoctorId());
             System.out.println("   Time Slot: " + app.getTimeSlot());
+            flushScheduler.requestFlush();
 
         } catch (IllegalArgumentException e) {
             System.out.println("❌ Invalid Doctor Type entered.");
@@ -206,7 +299,7 @@ public class Main {
         printHeader("CREATE NEW PATIENT");
         try {
             Patient patient = patientService.createPatientInteractive(scanner);
-            patientStore.save(patientService.getPatients());
+            flushScheduler.requestFlush();
             System.out.println("✅ PATIENT CREATED SUCCESSFULLY!");
             System.out.println("   Name: " + patient.getName());
             System.out.println("   MRN: " + patient.getMrn());
@@ -225,7 +318,7 @@ public class Main {
         printHeader("CREATE NEW DOCTOR");
         try {
             Doctor doctor = doctorService.createDoctorInteractive(scanner);
-            doctorStore.save(doctorService.getDoctors());
+            flushScheduler.requestFlush();
 
             System.out.println("✅ DOCTOR CREATED SUCCESSFULLY!");
             System.out.println("   Name: " + doctor.getName());
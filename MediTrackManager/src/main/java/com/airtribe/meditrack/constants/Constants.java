@@ -12,6 +12,45 @@ public class Constants {
     public static final String APPOINTMENT_CSV = RESOURCE_DIR + File.separator + "appointment_data.csv";
 // verify if you have bill_data.csv defined here too
 
+    // Binary snapshots (see BinarySnapshot); -Dmeditrack.snapshot.format=CSV|BINARY|BOTH
+    public static final String DOCTOR_SNAPSHOT = RESOURCE_DIR + File.separator + "doctor_data.bin";
+    public static final String PATIENT_SNAPSHOT = RESOURCE_DIR + File.separator + "patient_data.bin";
+    public static final String APPOINTMENT_SNAPSHOT = RESOURCE_DIR + File.separator + "appointment_data.bin";
+    public static final String SNAPSHOT_FORMAT_PROPERTY = "meditrack.snapshot.format";
+    // -Dmeditrack.storage.backend=csv|binary|jsonl (see StorageBackends); takes precedence over the format above
+    public static final String STORAGE_BACKEND_PROPERTY = "meditrack.storage.backend";
+
+    // Write-ahead logs replayed over the CSV snapshots at startup
+    public static final String DOCTOR_WAL = RESOURCE_DIR + File.separator + "doctor_data.wal";
+    public static final String PATIENT_WAL = RESOURCE_DIR + File.separator + "patient_data.wal";
+    public static final String APPOINTMENT_WAL = RESOURCE_DIR + File.separator + "appointment_data.wal";
+    // -Dmeditrack.wal.fsync=PER_OP|GROUP_COMMIT|INTERVAL
+    public static final String WAL_FSYNC_PROPERTY = "meditrack.wal.fsync";
+    // Bookings must be durable before they return, so the appointment log never falls back to INTERVAL
+    public static final String APPOINTMENT_WAL_FSYNC_PROPERTY = "meditrack.wal.appointments.fsync";
+    public static final long WAL_FSYNC_INTERVAL_MS = 200;
+    public static final int WAL_COMPACTION_THRESHOLD = 1000;
+    // Background saves: edits within this window share one flush; failed flushes retry after the longer delay
+    public static final long FLUSH_DELAY_MS = 100;
+    public static final long FLUSH_RETRY_DELAY_MS = 5000;
+    // Upper bounds on the load-time string pools (distinct values plus distinct lists)
+    public static final int STRING_POOL_CODES_CAPACITY = 16_384;
+    public static final int STRING_POOL_ADDRESSES_CAPACITY = 65_536;
+    // -Dmeditrack.patients.store=disk keeps patients in DiskPatientStore (patient_store.dat/.idx) with a bounded hot set;
+    // =lazy indexes only the patient CSV's key columns at startup and parses each patient on first access
+    public static final String PATIENT_STORE_PROPERTY = "meditrack.patients.store";
+    public static final String PATIENT_STORE_DISK = "disk";
+    public static final String PATIENT_STORE_LAZY = "lazy";
+    public static final String PATIENT_STORE_BASE = RESOURCE_DIR + File.separator + "patient_store";
+    public static final int PATIENT_HOT_SET_CAPACITY = 10_000;
+    // -Dmeditrack.doctor.selection=ROUND_ROBIN|LEAST_LOADED|EARLIEST_SLOT picks the doctor for symptom bookings
+    public static final String DOCTOR_SELECTION_PROPERTY = "meditrack.doctor.selection";
+    // Classpath keyword dictionary for SymptomMatcher
+    public static final String SYMPTOM_KEYWORDS_RESOURCE = "/symptom_keywords.csv";
+    // Labelled examples SymptomClassifier trains on; it places symptoms no keyword matches, below this confidence a GP does
+    public static final String SYMPTOM_TRAINING_RESOURCE = "/symptom_training.csv";
+    public static final double SYMPTOM_CLASSIFIER_MIN_CONFIDENCE = 0.7;
+
 
     public static final double TAX_RATE = 0.18;
 
@@ -1,10 +1,14 @@
 package com.airtribe.meditrack.entity;
 
 import com.airtribe.meditrack.enums.AppointmentStatus;
+import com.airtribe.meditrack.util.IdDictionary;
 import com.airtribe.meditrack.util.IdGenerator;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 
@@ -17,16 +21,56 @@ public class Appointment implements Serializable {
     @lombok.Builder.Default
     private String appointmentId = IdGenerator.generateId();
 
-    private String doctorId;
-    private String patientId;
+    // Doctor and patient are held as IdDictionary keys; the string ids are looked up on demand.
+    // Keys are only meaningful inside this process, so serialization writes the ids instead.
+    private transient int doctorKey;
+    private transient int patientKey;
     private LocalDateTime timeSlot;
 
     @lombok.Builder.Default
     private AppointmentStatus status = AppointmentStatus.CONFIRMED;
 
+    public String getDoctorId() {
+        return IdDictionary.DOCTORS.idOf(doctorKey);
+    }
+
+    public void setDoctorId(String doctorId) {
+        this.doctorKey = IdDictionary.DOCTORS.keyOf(doctorId);
+    }
+
+    public String getPatientId() {
+        return IdDictionary.PATIENTS.idOf(patientKey);
+    }
+
+    public void setPatientId(String patientId) {
+        this.patientKey = IdDictionary.PATIENTS.keyOf(patientId);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(getDoctorId());
+        out.writeObject(getPatientId());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        setDoctorId((String) in.readObject());
+        setPatientId((String) in.readObject());
+    }
+
     @Override
     public String toString() {
         return "Appointment [ID=" + appointmentId + ", Time=" + timeSlot +
-                ", Status=" + status + ", Doctor=" + doctorId + ", Patient=" + patientId + "]";
+                ", Status=" + status + ", Doctor=" + getDoctorId() + ", Patient=" + getPatientId() + "]";
+    }
+
+    public static abstract class AppointmentBuilder<C extends Appointment, B extends AppointmentBuilder<C, B>> {
+        public B doctorId(String doctorId) {
+            return doctorKey(IdDictionary.DOCTORS.keyOf(doctorId));
+        }
+
+        public B patientId(String patientId) {
+            return patientKey(IdDictionary.PATIENTS.keyOf(patientId));
+        }
     }
 }
@@ -50,7 +50,7 @@ public class Patient extends Person {
         this.setEmail(patient.getEmail());
         this.setGender(patient.getGender());
 
-        this.mrn = IdGenerator.generateId(); // New MRN
+        this.mrn = IdGenerator.generateMRN(); // New MRN
         this.emergencyContact = patient.getEmergencyContact();
         this.bloodGroup = patient.getBloodGroup();
 
@@ -1,7 +1,8 @@
 package com.airtribe.meditrack.exception;
 
+// Stackless, like PersonNotFoundException
 public class AppointmentNotFoundException extends Exception {
     public AppointmentNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -1,10 +1,11 @@
 package com.airtribe.meditrack.exception;
 
+// Stackless: a miss is an expected outcome of a lookup, so no stack trace is captured
 public class PersonNotFoundException extends Exception {
     public PersonNotFoundException() {
-        super();
+        super(null, null, false, false);
     }
     public PersonNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,12 @@
+package com.airtribe.meditrack.interfaces;
+
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.enums.DoctorType;
+
+import java.util.List;
+
+// Chooses which doctor of a specialty takes a symptom-based booking (see DoctorLoadTracker for the built-in ones)
+public interface DoctorSelectionStrategy {
+    // candidates is the specialty's current doctor list; null when it is empty
+    Doctor select(DoctorType type, List<Doctor> candidates);
+}
@@ -0,0 +1,9 @@
+package com.airtribe.meditrack.interfaces;
+
+// Target of a streaming load: snapshot rows arrive as upserts, then logged changes are replayed on top.
+// Snapshot rows may be delivered from several threads at once.
+public interface EntitySink<T> {
+    void upsert(T entity);
+
+    void delete(String key);
+}
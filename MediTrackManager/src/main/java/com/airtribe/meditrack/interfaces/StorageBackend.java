@@ -0,0 +1,32 @@
+package com.airtribe.meditrack.interfaces;
+
+import com.airtribe.meditrack.util.ChangeTracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Persistence for the Doctor, Patient and Appointment tables: a full snapshot per table plus the changes
+// saved since it was taken. DataStore delegates to the backend chosen by configuration (see StorageBackends).
+public interface StorageBackend extends Closeable {
+    String name();
+
+    // Snapshot rows, then every change saved after the snapshot, in order
+    <T> void load(Class<T> type, EntitySink<T> sink) throws IOException;
+
+    // Only the changes saved after the snapshot, in order; for callers that read the snapshot themselves
+    <T> void loadDelta(Class<T> type, EntitySink<T> sink) throws IOException;
+
+    // Durable once this returns; the changes reach disk together
+    <T> void saveDelta(Class<T> type, List<ChangeTracker.Change<T>> changes) throws IOException;
+
+    // Snapshot rows only, read lazily where the format allows; the caller closes the stream
+    <T> Stream<T> stream(Class<T> type) throws IOException;
+
+    // Replaces the table's snapshot and drops the saved changes it now covers
+    <T> void snapshot(Class<T> type, Iterable<? extends T> rows) throws IOException;
+
+    // Changes saved since the last snapshot
+    long deltaSize(Class<?> type) throws IOException;
+}
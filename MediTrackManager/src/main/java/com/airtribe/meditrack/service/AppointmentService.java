@@ -3,30 +3,88 @@ package com.airtribe.meditrack.service;
 import com.airtribe.meditrack.entity.Appointment;
 import com.airtribe.meditrack.entity.Doctor;
 import com.airtribe.meditrack.entity.Patient;
-import com.airtribe.meditrack.entity.Person;
 import com.airtribe.meditrack.enums.AppointmentStatus;
 import com.airtribe.meditrack.enums.DoctorType;
 import com.airtribe.meditrack.exception.AppointmentNotFoundException;
 import com.airtribe.meditrack.exception.DoctorNotFoundException;
 import com.airtribe.meditrack.exception.InvalidDataException;
 import com.airtribe.meditrack.exception.PersonNotFoundException;
+import com.airtribe.meditrack.interfaces.DoctorSelectionStrategy;
+import com.airtribe.meditrack.interfaces.EntitySink;
 import com.airtribe.meditrack.util.AIHelper;
+import com.airtribe.meditrack.util.DataStore;
 import com.airtribe.meditrack.util.DateUtil;
+import com.airtribe.meditrack.util.DoctorCalendar;
+import com.airtribe.meditrack.util.DoctorLoadTracker;
+import com.airtribe.meditrack.util.IdDictionary;
+import com.airtribe.meditrack.util.SlotTime;
+import com.airtribe.meditrack.util.ValidationReport;
 import com.airtribe.meditrack.util.Validator;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static com.airtribe.meditrack.constants.Constants.DOCTOR_SELECTION_PROPERTY;
+
+// Bookings are thread-safe: each doctor's calendar doubles as that doctor's lock, so a slot is
+// checked and claimed atomically and bookings for different doctors never contend.
 public class AppointmentService {
-    private HashSet<Appointment> appointments;
+    private final Set<Appointment> appointments;
+    // Primary-key index by appointment id, kept in step with the set
+    private final ConcurrentHashMap<String, Appointment> appointmentsById;
+    private static final int SEARCH_WINDOW_SLOTS = 48 * 10; // Search 10 days
+    private static final int PARALLEL_CANDIDATE_THRESHOLD = 8;
+    // Per-doctor bitmap calendars of CONFIRMED slots, indexed by doctor key (IdDictionary.DOCTORS) and kept
+    // in sync on book/cancel/setAppointments; a calendar's bits only change under its own monitor, which
+    // claimSlot, tryOccupy and cancelAppointment hold while they check and flip a slot
+    private volatile AtomicReferenceArray<DoctorCalendar> calendars;
     private final DoctorService doctorService;
     private final PatientService patientService;
+    // Bookings and freed slots are reported to the doctor service's load tracker, which backs this strategy
+    private final DoctorLoadTracker load;
+    // Null until the first symptom booking unless set; see doctorSelection()
+    private volatile DoctorSelectionStrategy doctorSelection;
+    // Optional journal; when set, a booking or cancellation returns only once its log entry is on disk
+    private DataStore<Appointment> appointmentStore;
+    // Failures of the last setAppointments, cleared and refilled on each call
+    private final ValidationReport validation = new ValidationReport();
     public AppointmentService(DoctorService doctorService, PatientService patientService) {
         this.doctorService = doctorService;
         this.patientService = patientService;
-        this.appointments = new HashSet<>();
+        this.appointments = ConcurrentHashMap.newKeySet();
+        this.appointmentsById = new ConcurrentHashMap<>();
+        this.calendars = new AtomicReferenceArray<>(64);
+        this.load = doctorService.getLoadTracker();
+    }
+    public void setAppointmentStore(DataStore<Appointment> appointmentStore) {
+        this.appointmentStore = appointmentStore;
+    }
+    public void setDoctorSelection(DoctorLoadTracker.Policy policy) {
+        this.doctorSelection = load.strategy(policy, this::nextFreeSlot);
+    }
+    public void setDoctorSelection(DoctorSelectionStrategy strategy) {
+        this.doctorSelection = strategy;
+    }
+    // The configured policy, built on first use so the constructor never hands out a reference to this
+    private DoctorSelectionStrategy doctorSelection() {
+        DoctorSelectionStrategy selection = doctorSelection;
+        if (selection == null) {
+            selection = load.strategy(DoctorLoadTracker.Policy.fromProperty(DOCTOR_SELECTION_PROPERTY,
+                    DoctorLoadTracker.Policy.LEAST_LOADED), this::nextFreeSlot);
+            doctorSelection = selection;
+        }
+        return selection;
     }
     public Appointment bookAppointment(String doctorIdentifierOrSymptom, String patientId, LocalDateTime requestedTime) throws Exception {
         // Validate patientId
@@ -34,136 +92,291 @@ public class AppointmentService {
             throw new IllegalArgumentException("Patient ID cannot be null or empty");
         Doctor doctor = resolveDoctor(doctorIdentifierOrSymptom);
         if (doctor == null) {
-            doctor = AIHelper.suggestDoctor(doctorIdentifierOrSymptom, doctorService);
+            doctor = AIHelper.suggestDoctor(doctorIdentifierOrSymptom, doctorService, doctorSelection());
             if (doctor == null)
                 throw new DoctorNotFoundException("No doctor found for symptom: " + doctorIdentifierOrSymptom);
         }
         // Validate doctor object
         Validator.validateDoctor(doctor);
         // Validate patient object
-        Person person = patientService.SearchById(patientId);
-        if (!(person instanceof Patient patient))
-            throw new PersonNotFoundException("Patient not found: " + patientId);
+        Patient patient = patientService.findById(patientId)
+                .orElseThrow(() -> new PersonNotFoundException("Patient not found: " + patientId));
         Validator.validatePatient(patient);
         // Resolve appointment slot
-        LocalDateTime finalSlot = (requestedTime != null) ?
+        int finalSlot = (requestedTime != null) ?
                 resolveTimeSlot(doctor.getId(), requestedTime) :
-                AIHelper.suggestEarliestSlot(doctor.getId(), this);
-        if (finalSlot == null)
+                SlotTime.of(AIHelper.suggestEarliestSlot(doctor.getId(), this));
+        if (finalSlot < 0)
             throw new AppointmentNotFoundException("No available slot for Doctor: " + doctor.getName());
         Appointment appointment = createAndSaveAppointment(doctor.getId(), patientId, finalSlot);
         Validator.validateAppointment(appointment);
         return appointment;
     }
-    // Helper to find doctor by ID first, then Name
-    private Doctor resolveDoctor(String identifier) throws DoctorNotFoundException {
-        // Try ID
-        try {
-            Person p = doctorService.SearchById(identifier);
-            if (p instanceof Doctor) return (Doctor) p;
-        } catch (Exception e) {
-            // proceed to try with name
-        }
-        // Try Name
-        try {
-            Person p = doctorService.SearchByName(identifier);
-            if (p instanceof Doctor) return (Doctor) p;
-        } catch (Exception e) {
-            // proceed to try with symptom
-        }
-        return null;
+    // Helper to find doctor by ID first, then Name; null sends the caller on to symptom matching
+    private Doctor resolveDoctor(String identifier) {
+        return doctorService.findById(identifier)
+                .or(() -> doctorService.findByName(identifier))
+                .orElse(null);
     }
     //  Path 2: Book by Doctor Type (Finds earliest available doctor)
     public Appointment bookAppointmentByType(DoctorType type, String patientId, LocalDateTime requestedTime) throws Exception {
-        if (patientService.SearchById(patientId) == null)
+        if (patientService.findById(patientId).isEmpty())
             throw new PersonNotFoundException("Patient not found: " + patientId);
         // 1. Get Candidates
         List<Doctor> candidates = doctorService.getDoctorsByType(type);
         if (candidates.isEmpty()) throw new Exception("No doctors found for specialization: " + type);
-        // 2. Earliest Slot
-        Doctor bestDoctor = null;
-        LocalDateTime bestSlot = null;
+        // 2. Earliest Slot: min-heap of each doctor's first free slot
         // If user didn't request a time, start searching from NOW
-        LocalDateTime searchStart = (requestedTime != null) ? requestedTime : LocalDateTime.now();
-        for (Doctor doc : candidates) {
-            Validator.validateDoctor(doc);
-            LocalDateTime slot = findNextAvailableSlot(doc.getId(), searchStart);
-            if (slot != null) {
-                // If we found a slot, checks if it's better (sooner) than current best
-                if (bestSlot == null || slot.isBefore(bestSlot)) {
-                    bestSlot = slot;
-                    bestDoctor = doc;
-                }
+        int fromSlot = firstSearchSlot(requestedTime == null ? SlotTime.next() : SlotTime.ceil(requestedTime));
+        int endSlot = fromSlot + SEARCH_WINDOW_SLOTS;
+        // Large specialties scan their calendars in parallel on the common fork-join pool
+        Doctor[] pool = candidates.toArray(new Doctor[0]);
+        IntStream order = IntStream.range(0, pool.length);
+        if (pool.length >= PARALLEL_CANDIDATE_THRESHOLD) order = order.parallel();
+        PriorityQueue<SlotCandidate> heap = order
+                .mapToObj(i -> firstFreeSlot(pool[i], i, fromSlot, endSlot))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(PriorityQueue::new));
+        // 3. Claim the globally earliest slot; if another booking won it, re-queue that doctor's next slot
+        while (!heap.isEmpty()) {
+            SlotCandidate best = heap.poll();
+            if (best.calendar().tryOccupy(best.slot())) {
+                System.out.println("Auto-Matched Doctor: " + best.doctor().getName());
+                return saveClaimedAppointment(best.doctor().getId(), patientId, best.calendar(), best.slot());
             }
+            int next = best.calendar().nextFreeSlot(best.slot() + 1, endSlot - best.slot() - 1);
+            if (next >= 0) heap.add(new SlotCandidate(next, best.order(), best.doctor(), best.calendar()));
+        }
+        throw new Exception("No available slots found for any " + type);
+    }
+    private SlotCandidate firstFreeSlot(Doctor doctor, int order, int fromSlot, int endSlot) {
+        Validator.validateDoctor(doctor);
+        DoctorCalendar calendar = calendarFor(doctor);
+        int slot = calendar.nextFreeSlot(fromSlot, endSlot - fromSlot);
+        return slot < 0 ? null : new SlotCandidate(slot, order, doctor, calendar);
+    }
+    // Heap entry ordered by slot; ties go to the doctor listed first, as before
+    private record SlotCandidate(int slot, int order, Doctor doctor, DoctorCalendar calendar)
+            implements Comparable<SlotCandidate> {
+        @Override
+        public int compareTo(SlotCandidate other) {
+            int bySlot = Integer.compare(slot, other.slot);
+            return bySlot != 0 ? bySlot : Integer.compare(order, other.order);
         }
-        if (bestDoctor == null) throw new Exception("No available slots found for any " + type);
-        System.out.println("Auto-Matched Doctor: " + bestDoctor.getName());
-        // Create
-        return createAndSaveAppointment(bestDoctor.getId(), patientId, bestSlot);
     }
 
     // --- Helpers ---
-    private Appointment createAndSaveAppointment(String docId, String patId, LocalDateTime slot) throws PersonNotFoundException {
+    private Appointment createAndSaveAppointment(String docId, String patId, int slot)
+            throws PersonNotFoundException, AppointmentNotFoundException, IOException {
         if (!Validator.isValidId(docId)) throw new DoctorNotFoundException("Doctor ID invalid");
         if (!Validator.isValidId(patId)) throw new PersonNotFoundException("Patient ID invalid");
+        DoctorCalendar calendar = calendar(IdDictionary.DOCTORS.keyOf(docId));
+        slot = claimSlot(calendar, slot);
+        if (slot < 0) throw new AppointmentNotFoundException("No available slot left for Doctor: " + docId);
+        return saveClaimedAppointment(docId, patId, calendar, slot);
+    }
+    // Records an appointment for a slot already claimed on the calendar; releases it if validation or the journal fails.
+    // It joins the set before the journal append, so a snapshot marked after that append always contains it.
+    private Appointment saveClaimedAppointment(String docId, String patId, DoctorCalendar calendar, int claimedSlot)
+            throws IOException {
+        LocalDateTime slot = SlotTime.toDateTime(claimedSlot);
         Appointment appointment = Appointment.builder()
                 .doctorId(docId)
                 .patientId(patId)
                 .timeSlot(slot)
                 .status(AppointmentStatus.CONFIRMED)
                 .build();
-        Validator.validateAppointment(appointment);
+        try {
+            Validator.validateAppointment(appointment);
+        } catch (InvalidDataException e) {
+            calendar.release(claimedSlot);
+            load.slotFreed(appointment.getDoctorKey(), claimedSlot);
+            throw e;
+        }
         appointments.add(appointment);
+        appointmentsById.put(appointment.getAppointmentId(), appointment);
+        try {
+            if (appointmentStore != null) appointmentStore.journal(appointment);
+        } catch (IOException e) {
+            appointments.remove(appointment);
+            appointmentsById.remove(appointment.getAppointmentId(), appointment);
+            calendar.release(claimedSlot);
+            load.slotFreed(appointment.getDoctorKey(), claimedSlot);
+            throw e;
+        }
+        load.booked(appointment.getDoctorKey());
         System.out.println("Appointment Booked: " + appointment.getAppointmentId() + " at " + DateUtil.format(slot));
         return appointment;
     }
-    private LocalDateTime resolveTimeSlot(String doctorId, LocalDateTime requestedTime) {
-        if (requestedTime != null) {
-            if (isSlotAvailable(doctorId, requestedTime)) return requestedTime;
-            System.out.println("Requested slot unavailable. Searching next...");
-            return findNextAvailableSlot(doctorId, requestedTime);
+    // Slot for the requested time, or the next free one after it; -1 if there is none
+    private int resolveTimeSlot(String doctorId, LocalDateTime requestedTime) {
+        // Bookings live on the 30-minute slot grid of the doctor's calendar
+        int slot = SlotTime.roundUp(requestedTime);
+        if (isSlotAvailable(doctorId, slot)) return slot;
+        System.out.println("Requested slot unavailable. Searching next...");
+        return nextAvailableSlot(doctorId, slot);
+    }
+    private int nextAvailableSlot(String doctorId, int fromSlot) {
+        DoctorCalendar calendar = calendarFor(doctorId);
+        return calendar == null ? -1 : calendar.nextFreeSlot(firstSearchSlot(fromSlot), SEARCH_WINDOW_SLOTS);
+    }
+    // Never a slot that has already started
+    private static int firstSearchSlot(int fromSlot) {
+        return Math.max(fromSlot, SlotTime.next());
+    }
+    private boolean isSlotAvailable(String doctorId, int slot) {
+        DoctorCalendar calendar = calendarFor(doctorId);
+        return calendar != null && calendar.isFree(slot);
+    }
+    // Claims the slot under the doctor's lock; if another booking took it first, claims the next free one (-1 if none)
+    private int claimSlot(DoctorCalendar calendar, int slot) {
+        synchronized (calendar) {
+            if (!calendar.isFree(slot)) {
+                slot = calendar.nextFreeSlot(slot + 1, SEARCH_WINDOW_SLOTS);
+                if (slot < 0) return -1;
+            }
+            calendar.occupy(slot);
+            return slot;
         }
-        return findNextAvailableSlot(doctorId, LocalDateTime.now());
-    }
-    private LocalDateTime findNextAvailableSlot(String doctorId, LocalDateTime fromTime) {
-        if (fromTime.isBefore(LocalDateTime.now())) fromTime = LocalDateTime.now();
-        LocalDateTime candidate = DateUtil.roundToNextSlot(fromTime);
-        for (int i = 0; i < 48 * 10; i++) { // Search 10 days
-            if (isSlotAvailable(doctorId, candidate)) return candidate;
-            candidate = candidate.plusMinutes(DateUtil.SLOT_DURATION_MINUTES);
+    }
+    // Calendar of a known doctor, with its working mask synced to the doctor's current hours
+    private DoctorCalendar calendarFor(String doctorId) {
+        Doctor doctor = doctorService.findById(doctorId).orElse(null);
+        return doctor == null ? null : calendarFor(doctor);
+    }
+    private DoctorCalendar calendarFor(Doctor doctor) {
+        DoctorCalendar calendar = calendar(IdDictionary.DOCTORS.keyOf(doctor.getId()));
+        calendar.syncWorkingHours(doctor);
+        return calendar;
+    }
+    private void indexSlot(Appointment appointment) {
+        if (appointment.getStatus() != AppointmentStatus.CONFIRMED || appointment.getTimeSlot() == null) return;
+        calendar(appointment.getDoctorKey()).occupy(SlotTime.of(appointment.getTimeSlot()));
+        load.booked(appointment.getDoctorKey());
+    }
+    private void unindexSlot(Appointment appointment) {
+        DoctorCalendar calendar = existingCalendar(appointment.getDoctorKey());
+        if (calendar != null && appointment.getTimeSlot() != null) {
+            int slot = SlotTime.of(appointment.getTimeSlot());
+            calendar.release(slot);
+            load.released(appointment.getDoctorKey());
+            load.slotFreed(appointment.getDoctorKey(), slot);
         }
-        return null;
     }
-    private boolean isSlotAvailable(String doctorId, LocalDateTime slot) {
-        if (!doctorService.isDoctorWorking(doctorId, slot)) return false;
-        return appointments.stream()
-                .filter(a -> a.getDoctorId().equals(doctorId))
-                .filter(a -> a.getStatus() == AppointmentStatus.CONFIRMED)
-                .noneMatch(a -> a.getTimeSlot().isEqual(slot));
+    // First free slot from now for the doctor with this key, as the load tracker's EARLIEST_SLOT policy needs it
+    private int nextFreeSlot(int doctorKey) {
+        Doctor doctor = doctorService.findById(IdDictionary.DOCTORS.idOf(doctorKey)).orElse(null);
+        if (doctor == null) return DoctorLoadTracker.NO_FREE_SLOT;
+        int slot = calendarFor(doctor).nextFreeSlot(SlotTime.next(), SEARCH_WINDOW_SLOTS);
+        return slot < 0 ? DoctorLoadTracker.NO_FREE_SLOT : slot;
+    }
+    private DoctorCalendar existingCalendar(int doctorKey) {
+        AtomicReferenceArray<DoctorCalendar> table = calendars;
+        return doctorKey < table.length() ? table.get(doctorKey) : null;
+    }
+    private DoctorCalendar calendar(int doctorKey) {
+        DoctorCalendar calendar = existingCalendar(doctorKey);
+        return calendar != null ? calendar : createCalendar(doctorKey);
+    }
+    private synchronized DoctorCalendar createCalendar(int doctorKey) {
+        AtomicReferenceArray<DoctorCalendar> table = calendars;
+        if (doctorKey >= table.length()) {
+            AtomicReferenceArray<DoctorCalendar> grown =
+                    new AtomicReferenceArray<>(Math.max(table.length() * 2, doctorKey + 1));
+            for (int i = 0; i < table.length(); i++) grown.set(i, table.get(i));
+            calendars = table = grown;
+        }
+        DoctorCalendar calendar = table.get(doctorKey);
+        if (calendar == null) {
+            calendar = new DoctorCalendar();
+            table.set(doctorKey, calendar);
+        }
+        return calendar;
     }
     public List<Appointment> getAllAppointments() {
         return new ArrayList<>(appointments);
     }
+    // Live read-only view, for snapshots that should not copy every appointment first
+    public Set<Appointment> getAppointments() {
+        return Collections.unmodifiableSet(appointments);
+    }
     public Appointment getAppointmentById(String id) throws AppointmentNotFoundException {
         if (!Validator.isValidId(id))
             throw new InvalidDataException("Appointment ID cannot be null or empty");
-        return appointments.stream()
-                .filter(a -> a.getAppointmentId().equals(id)).
-                findFirst().
-                orElseThrow(() -> new AppointmentNotFoundException("Appointment with ID " + id + " not found."));
+        Appointment appointment = appointmentsById.get(id);
+        if (appointment == null)
+            throw new AppointmentNotFoundException("Appointment with ID " + id + " not found.");
+        return appointment;
+    }
+    public Appointment cancelAppointment(String id) throws AppointmentNotFoundException, IOException {
+        Appointment appointment = getAppointmentById(id);
+        // The status flips under the doctor's lock, so of two concurrent cancels only one releases the slot.
+        // The slot stays occupied until the cancellation is journaled, so no booking can take it before then.
+        DoctorCalendar calendar = calendar(appointment.getDoctorKey());
+        synchronized (calendar) {
+            if (appointment.getStatus() != AppointmentStatus.CONFIRMED) return appointment;
+            appointment.setStatus(AppointmentStatus.CANCELLED);
+        }
+        try {
+            if (appointmentStore != null) appointmentStore.journal(appointment);
+        } catch (IOException e) {
+            synchronized (calendar) {
+                appointment.setStatus(AppointmentStatus.CONFIRMED);
+            }
+            throw e;
+        }
+        unindexSlot(appointment);
+        return appointment;
     }
     public LocalDateTime bookAppointmentByAI(String doctorId) {
-        LocalDateTime slot = findNextAvailableSlot(doctorId, LocalDateTime.now());
+        int next = nextAvailableSlot(doctorId, SlotTime.next());
+        LocalDateTime slot = next < 0 ? null : SlotTime.toDateTime(next);
         if (!Validator.isValidAppointmentSlot(slot)) {
             throw new InvalidDataException("AI-suggested appointment slot is invalid or in the past");
         }
         return slot;
     }
 
+    // Bulk load of stored appointments (past ones included); not meant to run while bookings are in flight
     public void setAppointments(HashSet<Appointment> appts) {
-        for (Appointment appointment : appts) {
-            Validator.validateAppointment(appointment);
+        Validator.validateAll(appts, Validator::checkStoredAppointment, validation).throwIfInvalid();
+        appointments.clear();
+        appointmentsById.clear();
+        synchronized (this) {
+            calendars = new AtomicReferenceArray<>(calendars.length());
         }
-        this.appointments = appts;
+        load.resetBookings();
+        if (appts != null) {
+            for (Appointment appointment : appts) {
+                appointments.add(appointment);
+                appointmentsById.put(appointment.getAppointmentId(), appointment);
+                indexSlot(appointment);
+            }
+        }
+    }
+    // Streaming load target (see DataStore.loadAppointments): empties the service, then takes rows by id.
+    // A replayed row replaces the earlier one, freeing its slot if that one was still confirmed.
+    public EntitySink<Appointment> bulkLoader() {
+        setAppointments(null);
+        return new EntitySink<>() {
+            @Override
+            public void upsert(Appointment appointment) {
+                Validator.validateStoredAppointment(appointment);
+                Appointment previous = appointmentsById.put(appointment.getAppointmentId(), appointment);
+                if (previous != null) unlink(previous);
+                appointments.add(appointment);
+                indexSlot(appointment);
+            }
+
+            @Override
+            public void delete(String id) {
+                Appointment previous = appointmentsById.remove(id);
+                if (previous != null) unlink(previous);
+            }
+        };
+    }
+    private void unlink(Appointment appointment) {
+        appointments.remove(appointment);
+        if (appointment.getStatus() == AppointmentStatus.CONFIRMED) unindexSlot(appointment);
     }
 }
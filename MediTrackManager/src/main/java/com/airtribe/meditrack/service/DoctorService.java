@@ -3,107 +3,216 @@ package com.airtribe.meditrack.service;
 import com.airtribe.meditrack.entity.Person;
 import com.airtribe.meditrack.enums.DoctorType;
 import com.airtribe.meditrack.enums.GENDER;
+import com.airtribe.meditrack.util.ChangeTracker;
+import com.airtribe.meditrack.util.DateUtil;
+import com.airtribe.meditrack.util.DoctorLoadTracker;
+import com.airtribe.meditrack.util.ValidationReport;
 import com.airtribe.meditrack.util.Validator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.airtribe.meditrack.entity.Doctor;
 import com.airtribe.meditrack.exception.DoctorNotFoundException;
+import com.airtribe.meditrack.exception.InvalidDataException;
+import com.airtribe.meditrack.interfaces.EntitySink;
 import com.airtribe.meditrack.interfaces.Searchable;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Scanner;
-import java.util.stream.Collectors;
-
-import static com.airtribe.meditrack.constants.Constants.SLOT_DURATION_MINUTES;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DoctorService implements Searchable {
-    HashSet<Doctor> doctors;
+    // Concurrent set: background flushes iterate it while the interactive thread edits
+    private final Set<Doctor> doctors;
+    // Primary-key index by doctor id, kept in step with the set on every mutation
+    private final ConcurrentHashMap<String, Doctor> doctorsById;
+    // Doctors bucketed by specialty, each bucket handed out through a read-only view built once
+    private final EnumMap<DoctorType, List<Doctor>> doctorsByType;
+    private final EnumMap<DoctorType, List<Doctor>> doctorsByTypeView;
+    // Doctors added, edited or removed since the last DataStore.flush
+    private final ChangeTracker<Doctor> changes = new ChangeTracker<>();
+    // Reused by every bulk load
+    private final ValidationReport validation = new ValidationReport();
+    // Follows the specialty buckets; AppointmentService feeds it bookings
+    private final DoctorLoadTracker load = new DoctorLoadTracker();
     public DoctorService() {
-        this.doctors = new HashSet<>();
+        this.doctors = ConcurrentHashMap.newKeySet();
+        this.doctorsById = new ConcurrentHashMap<>();
+        this.doctorsByType = new EnumMap<>(DoctorType.class);
+        this.doctorsByTypeView = new EnumMap<>(DoctorType.class);
+        for (DoctorType type : DoctorType.values()) {
+            List<Doctor> bucket = new CopyOnWriteArrayList<>();
+            doctorsByType.put(type, bucket);
+            doctorsByTypeView.put(type, Collections.unmodifiableList(bucket));
+        }
     }
     public void setDoctors(HashSet<Doctor> doctors) {
+        Validator.validateAll(doctors, Validator::checkDoctor, validation).throwIfInvalid();
+        this.doctors.clear();
+        changes.clear();
+        doctorsById.clear();
+        doctorsByType.values().forEach(List::clear);
+        load.untrackAll();
         if (doctors != null) {
+            this.doctors.addAll(doctors);
             for (Doctor d : doctors) {
-                Validator.validateDoctor(d);
+                indexDoctor(d);
+                addToTypeBucket(d);
+                load.track(d);
             }
         }
-        this.doctors = doctors;
+    }
+    // Streaming load target (see DataStore.loadDoctors): empties the service, then takes rows by id,
+    // replacing any earlier row with the same id. Loaded rows are not marked dirty.
+    public EntitySink<Doctor> bulkLoader() {
+        setDoctors(null);
+        return new EntitySink<>() {
+            @Override
+            public void upsert(Doctor doctor) {
+                Validator.validateDoctor(doctor);
+                Doctor previous = doctor.getId() != null ? doctorsById.put(doctor.getId(), doctor) : null;
+                if (previous != null) unlink(previous);
+                doctors.add(doctor);
+                addToTypeBucket(doctor);
+                load.track(doctor);
+            }
+
+            @Override
+            public void delete(String id) {
+                Doctor previous = doctorsById.remove(id);
+                if (previous != null) unlink(previous);
+            }
+        };
+    }
+    private void unlink(Doctor doctor) {
+        doctors.remove(doctor);
+        if (doctor.getDoctorType() != null) doctorsByType.get(doctor.getDoctorType()).remove(doctor);
+        load.untrack(doctor);
     }
     public void addDoctor(Doctor doctor) {
         Validator.validateDoctor(doctor);
-        doctors.add(doctor);
+        claimId(doctor.getId(), doctor);
+        if (doctors.add(doctor)) {
+            addToTypeBucket(doctor);
+            load.track(doctor);
+            changes.upserted(doctor.getId(), doctor);
+        }
     }
     public void removeDoctor(Doctor doctor) {
-        doctors.remove(doctor);
+        if (doctors.remove(doctor)) {
+            if (doctor.getId() != null) doctorsById.remove(doctor.getId(), doctor);
+            if (doctor.getDoctorType() != null) doctorsByType.get(doctor.getDoctorType()).remove(doctor);
+            load.untrack(doctor);
+            changes.deleted(doctor.getId(), doctor);
+        }
+    }
+    private void indexDoctor(Doctor doctor) {
+        if (doctor.getId() != null) doctorsById.put(doctor.getId(), doctor);
+    }
+    // Indexes the doctor under the id unless another doctor already holds it, which would leave the set
+    // and the index disagreeing
+    private void claimId(String id, Doctor doctor) {
+        if (id == null) return;
+        Doctor holder = doctorsById.putIfAbsent(id, doctor);
+        if (holder != null && holder != doctor)
+            throw new InvalidDataException("Doctor ID already in use: " + id);
+    }
+    private void addToTypeBucket(Doctor doctor) {
+        if (doctor.getDoctorType() != null) doctorsByType.get(doctor.getDoctorType()).add(doctor);
     }
     public void updateDoctor(String doctorId, String doctorObject) throws DoctorNotFoundException, JsonProcessingException {
         ObjectMapper mapper = new ObjectMapper();
-        Doctor updatedDoctor = mapper.readValue(doctorObject, Doctor.class);
+        updateDoctor(doctorId, mapper.readValue(doctorObject, Doctor.class));
+    }
+    public void updateDoctor(String doctorId, Doctor updatedDoctor) throws DoctorNotFoundException {
         Person doctorInstance = SearchById(doctorId);
         if (doctorInstance instanceof Doctor doctor) {
             Validator.validateDoctor(updatedDoctor);
+            // Claimed before anything changes, so a clash leaves the doctor as it was
+            claimId(updatedDoctor.getId(), doctor);
+            // Id and specialty may both change, so the doctor is re-tracked under the new ones
+            load.untrack(doctor);
             doctor.setName(updatedDoctor.getName());
             doctor.setAge(updatedDoctor.getAge());
             doctor.setAddress(updatedDoctor.getAddress());
             doctor.setContactNumber(updatedDoctor.getContactNumber());
-            doctor.setDoctorType(updatedDoctor.getDoctorType());
+            if (doctor.getDoctorType() != updatedDoctor.getDoctorType()) {
+                if (doctor.getDoctorType() != null) doctorsByType.get(doctor.getDoctorType()).remove(doctor);
+                doctor.setDoctorType(updatedDoctor.getDoctorType());
+                addToTypeBucket(doctor);
+            }
+            String oldId = doctor.getId();
+            if (oldId != null && !oldId.equals(updatedDoctor.getId())) doctorsById.remove(oldId, doctor);
             doctor.setId(updatedDoctor.getId());
             doctor.setConsultationFee(updatedDoctor.getConsultationFee());
+            load.track(doctor);
+            if (oldId != null && !oldId.equals(doctor.getId())) changes.deleted(oldId, doctor);
+            changes.upserted(doctor.getId(), doctor);
         } else {
             throw new DoctorNotFoundException("Entity found is not a Doctor.");
         }
     }
     public boolean isDoctorWorking(String doctorId, LocalDateTime slot) {
-        try {
-            Doctor doc = (Doctor) SearchById(doctorId);
-            // 1. Check Day
-            if (!doc.getAvailableDays().contains(slot.getDayOfWeek())) {
-                return false;
-            }
-            // 2. Check Time
-            LocalTime time = slot.toLocalTime();
-            // Assuming 30-min slots, ensures appointment finishes before shift end
-            return !time.isBefore(doc.getAvailableFrom()) &&
-                    !time.plusMinutes(SLOT_DURATION_MINUTES).isAfter(doc.getAvailableTo());
-
-        } catch (DoctorNotFoundException e) {
+        Doctor doc = findById(doctorId).orElse(null);
+        if (doc == null) {
             return false;
         }
+        // 1. Check Day
+        if (!doc.getAvailableDays().contains(slot.getDayOfWeek())) {
+            return false;
+        }
+        // 2. Check Time: the 30-min slot must finish by the shift end
+        return DateUtil.isTimeWithinRange(slot.toLocalTime(), doc.getAvailableFrom(), doc.getAvailableTo());
     }
+    // Read-only live view of the specialty bucket; no copy is made per call
     public List<Doctor> getDoctorsByType(DoctorType type) {
-        return doctors.stream()
-                .filter(d -> d.getDoctorType() == type)
-                .collect(Collectors.toList());
+        return (type == null) ? List.of() : doctorsByTypeView.get(type);
     }
-    public HashSet<Doctor> getDoctors() {
+    public Set<Doctor> getDoctors() {
         return this.doctors;
     }
-    @Override
-    public Person SearchByName(String name) throws DoctorNotFoundException {
+    public DoctorLoadTracker getLoadTracker() {
+        return load;
+    }
+    public ChangeTracker<Doctor> getChangeTracker() {
+        return changes;
+    }
+    // Non-throwing lookups for internal callers, where a miss is an ordinary outcome
+    public Optional<Doctor> findById(String id) {
+        return Optional.ofNullable(id == null ? null : doctorsById.get(id));
+    }
+    public Optional<Doctor> findByName(String name) {
         for (Doctor doctor : doctors) {
             if (doctor.getName().equalsIgnoreCase(name))
-                return doctor;
+                return Optional.of(doctor);
         }
-        throw new DoctorNotFoundException("Doctor with name: " + name + " does not exist");
+        return Optional.empty();
     }
-    @Override
-    public Person SearchByAge(int age) throws DoctorNotFoundException {
+    public Optional<Doctor> findByAge(int age) {
         for (Doctor doctor : doctors) {
             if (doctor.getAge() == age)
-                return doctor;
+                return Optional.of(doctor);
         }
-        throw new DoctorNotFoundException("Doctor with age: " + age + " does not exist");
+        return Optional.empty();
+    }
+    @Override
+    public Person SearchByName(String name) throws DoctorNotFoundException {
+        return findByName(name).orElseThrow(() -> new DoctorNotFoundException("Doctor with name: " + name + " does not exist"));
+    }
+    @Override
+    public Person SearchByAge(int age) throws DoctorNotFoundException {
+        return findByAge(age).orElseThrow(() -> new DoctorNotFoundException("Doctor with age: " + age + " does not exist"));
     }
     @Override
     public Person SearchById(String id) throws DoctorNotFoundException {
-        for (Doctor doctor : doctors) {
-            if (doctor.getId().equals(id))
-                return doctor;
-        }
-        throw new DoctorNotFoundException("Doctor with id: " + id + " does not exist");
+        return findById(id).orElseThrow(() -> new DoctorNotFoundException("Doctor with id: " + id + " does not exist"));
     }
 
 
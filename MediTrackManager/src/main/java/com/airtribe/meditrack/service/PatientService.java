@@ -3,42 +3,267 @@ package com.airtribe.meditrack.service;
 import com.airtribe.meditrack.entity.Person;
 import com.airtribe.meditrack.enums.GENDER;
 import com.airtribe.meditrack.exception.InvalidDataException;
+import com.airtribe.meditrack.util.ChangeTracker;
+import com.airtribe.meditrack.util.DiskPatientStore;
+import com.airtribe.meditrack.util.PatientRowIndex;
+import com.airtribe.meditrack.util.ValidationReport;
 import com.airtribe.meditrack.util.Validator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.airtribe.meditrack.entity.Patient;
 import com.airtribe.meditrack.exception.PatientNotFoundException;
+import com.airtribe.meditrack.interfaces.EntitySink;
 import com.airtribe.meditrack.interfaces.Searchable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashSet;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class PatientService implements Searchable {
-    HashSet<Patient> Patients;
+    // Concurrent set: background flushes iterate it while the interactive thread edits
+    private final Set<Patient> Patients;
+    // Primary-key index by upper-cased MRN, kept in step with the set on every mutation
+    private final ConcurrentHashMap<String, Patient> patientsByMrn;
+    // Patients added, edited or deleted since the last DataStore.flush
+    private final ChangeTracker<Patient> changes = new ChangeTracker<>();
+    private final ValidationReport validation = new ValidationReport();
+    // When set, patients live in this store instead of the set above, and edits are written straight to it
+    private volatile DiskPatientStore disk;
+    // Lazy startup: snapshot rows not parsed yet, each hydrated into the set above on first access
+    private volatile PatientRowIndex lazyRows;
     public PatientService() {
-        Patients = new HashSet<>();
+        Patients = ConcurrentHashMap.newKeySet();
+        patientsByMrn = new ConcurrentHashMap<>();
     }
-    public HashSet<Patient> getPatients() {
-        return Patients;
+    // Moves the service onto a disk store: from here on only the store's hot set is kept on the heap
+    public void useDiskStore(DiskPatientStore store) {
+        dropLazyRows();
+        Patients.clear();
+        patientsByMrn.clear();
+        changes.clear();
+        this.disk = store;
+    }
+    public DiskPatientStore getDiskStore() {
+        return disk;
+    }
+    // With a disk store this reads every patient into a new set, and lazily loaded patients are all
+    // hydrated first; prefer patientCount where only the size is needed
+    public Set<Patient> getPatients() {
+        if (disk == null) {
+            hydrateAll();
+            return Patients;
+        }
+        Set<Patient> all = new HashSet<>();
+        forEachPatient(all::add);
+        return all;
+    }
+    public int patientCount() {
+        if (disk != null) return disk.size();
+        PatientRowIndex rows = lazyRows;
+        return Patients.size() + (rows != null ? rows.size() : 0);
+    }
+    // True while some lazily loaded patients have not been parsed yet
+    public boolean hasUnloadedPatients() {
+        PatientRowIndex rows = lazyRows;
+        return rows != null && rows.size() > 0;
+    }
+    public void forEachPatient(Consumer<? super Patient> action) {
+        if (disk == null) {
+            hydrateAll();
+            Patients.forEach(action);
+            return;
+        }
+        try {
+            disk.forEach(action);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    public ChangeTracker<Patient> getChangeTracker() {
+        return changes;
     }
     public void setPatients(HashSet<Patient> Patients) {
+        Validator.validateAll(Patients, Validator::checkPatient, validation).throwIfInvalid();
+        dropLazyRows();
+        this.Patients.clear();
+        changes.clear();
+        patientsByMrn.clear();
+        if (disk != null) {
+            try {
+                disk.clear();
+                if (Patients != null) {
+                    for (Patient p : Patients) disk.put(p);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
         if (Patients != null) {
+            this.Patients.addAll(Patients);
             for (Patient p : Patients) {
-                Validator.validatePatient(p);
+                indexPatient(p);
+            }
+        }
+    }
+    // Streaming load target (see DataStore.loadPatients): empties the service, then takes rows by MRN,
+    // replacing any earlier row with the same MRN. Loaded rows are not marked dirty. A disk store is only
+    // ever filled this way while empty: once populated it is the registry, and a reload would wipe it.
+    public EntitySink<Patient> bulkLoader() {
+        if (disk != null && disk.size() > 0)
+            throw new IllegalStateException("Disk patient store already holds " + disk.size() + " patients");
+        setPatients(null);
+        if (disk != null) {
+            DiskPatientStore store = disk;
+            return new EntitySink<>() {
+                @Override
+                public void upsert(Patient patient) {
+                    Validator.validatePatient(patient);
+                    writeThrough(() -> store.put(patient));
+                }
+
+                @Override
+                public void delete(String mrn) {
+                    writeThrough(() -> store.remove(mrn));
+                }
+            };
+        }
+        return new EntitySink<>() {
+            @Override
+            public void upsert(Patient patient) {
+                Validator.validatePatient(patient);
+                Patient previous = patient.getMrn() != null ? patientsByMrn.put(normalizeMrn(patient.getMrn()), patient) : null;
+                if (previous != null) Patients.remove(previous);
+                Patients.add(patient);
+            }
+
+            @Override
+            public void delete(String mrn) {
+                Patient previous = patientsByMrn.remove(normalizeMrn(mrn));
+                if (previous != null) Patients.remove(previous);
+            }
+        };
+    }
+    // Lazy load target (in-memory mode only): the indexed snapshot rows stay unparsed, and the logged changes
+    // replayed on top (see DataStore.loadPatientChanges) are taken as loaded patients, replacing indexed rows
+    public EntitySink<Patient> lazyLoader(PatientRowIndex rows) {
+        EntitySink<Patient> loaded = bulkLoader();
+        lazyRows = rows;
+        return new EntitySink<>() {
+            @Override
+            public void upsert(Patient patient) {
+                rows.forget(patient.getMrn());
+                loaded.upsert(patient);
+            }
+
+            @Override
+            public void delete(String mrn) {
+                rows.forget(mrn);
+                loaded.delete(mrn);
+            }
+        };
+    }
+    // First access to a lazily loaded patient: its row is parsed and kept like an eagerly loaded one
+    private synchronized Patient hydrate(String mrn) {
+        PatientRowIndex rows = lazyRows;
+        if (rows == null || mrn == null) return null;
+        Patient cached = patientsByMrn.get(normalizeMrn(mrn));
+        if (cached != null) return cached;
+        try {
+            Patient patient = rows.hydrate(mrn);
+            if (patient != null) keepHydrated(patient);
+            return patient;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    private synchronized void hydrateAll() {
+        PatientRowIndex rows = lazyRows;
+        if (rows == null) return;
+        try {
+            rows.hydrateAll(this::keepHydrated);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dropLazyRows();
+    }
+    private void keepHydrated(Patient patient) {
+        Validator.validatePatient(patient);
+        Patients.add(patient);
+        indexPatient(patient);
+    }
+    private void dropLazyRows() {
+        PatientRowIndex rows = lazyRows;
+        lazyRows = null;
+        if (rows != null) {
+            try {
+                rows.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
-        this.Patients = Patients;
     }
     public void addPatient(Patient Patient) {
         Validator.validatePatient(Patient);
 
+        if (disk != null) {
+            boolean added;
+            try {
+                added = disk.putIfAbsent(Patient);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!added) throw new InvalidDataException("Patient MRN already in use: " + Patient.getMrn());
+            return;
+        }
+        claimMrn(Patient);
         Patients.add(Patient);
+        changes.upserted(Patient.getMrn(), Patient);
+    }
+    // A not yet hydrated row holds its MRN as firmly as an indexed patient does
+    private void claimMrn(Patient patient) {
+        String mrn = patient.getMrn();
+        if (mrn == null) return;
+        PatientRowIndex rows = lazyRows;
+        boolean taken = rows != null && rows.contains(mrn);
+        if (!taken) {
+            Patient holder = patientsByMrn.putIfAbsent(normalizeMrn(mrn), patient);
+            taken = holder != null && holder != patient;
+        }
+        if (taken) throw new InvalidDataException("Patient MRN already in use: " + mrn);
+    }
+    private interface DiskWrite {
+        void run() throws IOException;
+    }
+    private static void writeThrough(DiskWrite write) {
+        try {
+            write.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    private void indexPatient(Patient patient) {
+        if (patient.getMrn() != null) patientsByMrn.put(normalizeMrn(patient.getMrn()), patient);
+    }
+    private static String normalizeMrn(String mrn) {
+        return mrn.toUpperCase(Locale.ROOT);
     }
     public void deletePatient(String MRN) throws PatientNotFoundException {
 
         Person p = SearchById(MRN);
-        if (p != null) {
+        if (p != null && disk != null) {
+            writeThrough(() -> disk.remove(((Patient) p).getMrn()));
+        } else if (p != null) {
             Patients.remove(p);
+            patientsByMrn.remove(normalizeMrn(((Patient) p).getMrn()), p);
+            changes.deleted(((Patient) p).getMrn(), (Patient) p);
         } else {
             throw new PatientNotFoundException("Patient with MRN: " + MRN + " does not exist");
         }
@@ -59,36 +284,70 @@ public class PatientService implements Searchable {
             patient.setKnownAllergies(updatedPatient.getKnownAllergies());
             patient.setChronicConditions(updatedPatient.getChronicConditions());
             patient.setCurrentMedications(updatedPatient.getCurrentMedications());
+            if (disk != null) writeThrough(() -> disk.put(patient));
+            else changes.upserted(patient.getMrn(), patient);
         }
     }
-    @Override
-    public Person SearchByName(String name) throws PatientNotFoundException {
-        for (Patient patient : Patients) {
-            if (patient.getName().equalsIgnoreCase(name)) {
-                return patient;
+    // Non-throwing lookups for internal callers, where a miss is an ordinary outcome
+    public Optional<Patient> findByName(String name) {
+        Patient match = findFirst(patient -> patient.getName().equalsIgnoreCase(name));
+        PatientRowIndex rows = lazyRows;
+        if (match == null && rows != null) {
+            match = hydrate(rows.findMrnByName(name));
+        }
+        return Optional.ofNullable(match);
+    }
+    public Optional<Patient> findByAge(int age) {
+        // Age is not an indexed column, so every lazily loaded patient has to be parsed
+        hydrateAll();
+        return Optional.ofNullable(findFirst(patient -> patient.getAge() == age));
+    }
+    public Optional<Patient> findById(String mrnId) {
+        Patient patient;
+        if (disk != null) {
+            try {
+                patient = disk.get(mrnId);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+        } else {
+            patient = (mrnId == null) ? null : patientsByMrn.get(normalizeMrn(mrnId));
+            if (patient == null && lazyRows != null) patient = hydrate(mrnId);
         }
-        throw new PatientNotFoundException("Patient with name: " + name + " does not exist");
+        return Optional.ofNullable(patient);
+    }
+    @Override
+    public Person SearchByName(String name) throws PatientNotFoundException {
+        return findByName(name).orElseThrow(() -> new PatientNotFoundException("Patient with name: " + name + " does not exist"));
     }
     @Override
     public Person SearchByAge(int age) throws PatientNotFoundException {
-        for (Patient patient : Patients) {
-            if (patient.getAge() == age) {
-                return patient;
+        return findByAge(age).orElseThrow(() -> new PatientNotFoundException("Patient with age: " + age + " does not exist"));
+    }
+    // Full scan; with a disk store every record is read until the first match
+    private Patient findFirst(Predicate<Patient> test) {
+        if (disk == null) {
+            for (Patient patient : Patients) {
+                if (test.test(patient)) return patient;
             }
+            return null;
         }
-        throw new PatientNotFoundException("Patient with age: " + age + " does not exist");
+        Patient[] match = new Patient[1];
+        forEachPatient(patient -> {
+            if (match[0] == null && test.test(patient)) match[0] = patient;
+        });
+        return match[0];
     }
     @Override
     public Person SearchById(String mrnId) throws PatientNotFoundException {
+        Optional<Patient> patient = findById(mrnId);
+        if (patient.isPresent()) {
+            return patient.get();
+        }
+        // Format is only checked on a miss, to report malformed MRNs distinctly
         if (!Validator.isValidMRN(mrnId)) {
             throw new InvalidDataException("Invalid MRN format. MRN must be 6–12 alphanumeric characters.");
         }
-        for (Patient patient : Patients) {
-            if (patient.getMrn().equalsIgnoreCase(mrnId)) {
-                return patient;
-            }
-        }
         throw new PatientNotFoundException("Patient with MRN: " + mrnId + " does not exist");
     }
 
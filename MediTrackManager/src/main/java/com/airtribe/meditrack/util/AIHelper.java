@@ -2,35 +2,32 @@ package com.airtribe.meditrack.util;
 
 import com.airtribe.meditrack.entity.Doctor;
 import com.airtribe.meditrack.enums.DoctorType;
+import com.airtribe.meditrack.interfaces.DoctorSelectionStrategy;
 import com.airtribe.meditrack.service.AppointmentService;
 import com.airtribe.meditrack.service.DoctorService;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
-public class AIHelper {
-    public static Doctor suggestDoctor(String symptom, DoctorService doctorService) {
-        DoctorType type = mapSymptomToType(symptom);
-        List<Doctor> doctors = doctorService.getDoctorsByType(type);
-        return doctors.isEmpty() ? null : doctors.get(0);
-    }
-
-    private static DoctorType mapSymptomToType(String symptom) {
-        symptom = symptom.toLowerCase();
+import static com.airtribe.meditrack.constants.Constants.SYMPTOM_CLASSIFIER_MIN_CONFIDENCE;
 
-        if (symptom.contains("heart") || symptom.contains("cardio")) return DoctorType.CARDIOLOGIST;
-        if (symptom.contains("brain") || symptom.contains("neuro")) return DoctorType.NEUROLOGIST;
-        if (symptom.contains("tooth") || symptom.contains("dental")) return DoctorType.DENTIST;
-        if (symptom.contains("skin") || symptom.contains("rash")) return DoctorType.DERMATOLOGIST;
-        if (symptom.contains("stomach") || symptom.contains("digestion") || symptom.contains("gut")) return DoctorType.GASTROENTEROLOGIST;
-        if (symptom.contains("lung") || symptom.contains("breath") || symptom.contains("respiratory")) return DoctorType.PULMONOLOGIST;
-        if (symptom.contains("ear") || symptom.contains("nose") || symptom.contains("throat")) return DoctorType.OTOLARYNGOLOGIST;
-        if (symptom.contains("urine") || symptom.contains("kidney") || symptom.contains("bladder")) return DoctorType.UROLOGIST;
-        if (symptom.contains("jaw") || symptom.contains("face") || symptom.contains("maxillofacial")) return DoctorType.MAXILLOFACIAL;
-        if (symptom.contains("joint") || symptom.contains("arthritis") || symptom.contains("rheumatism")) return DoctorType.RHEUMATOLOGIST;
-        if (symptom.contains("blood") || symptom.contains("lab") || symptom.contains("test")) return DoctorType.PATHOLOGIST;
-
-        return DoctorType.GENERAL_PRACTITIONER; // default fallback
+public class AIHelper {
+    // A doctor of the best-ranked specialty that has any, chosen by the strategy. A symptom matching no
+    // keyword goes to the classifier's specialty when it is confident enough, else (or if unstaffed) to a GP.
+    public static Doctor suggestDoctor(String symptom, DoctorService doctorService, DoctorSelectionStrategy selection) {
+        List<DoctorType> ranked = SymptomMatcher.defaultMatcher().rank(symptom);
+        if (ranked.isEmpty()) {
+            SymptomClassifier.Prediction guess = SymptomClassifier.defaultClassifier().classify(symptom);
+            ranked = guess.confidence() >= SYMPTOM_CLASSIFIER_MIN_CONFIDENCE && guess.type() != DoctorType.GENERAL_PRACTITIONER
+                    ? List.of(guess.type(), DoctorType.GENERAL_PRACTITIONER)
+                    : List.of(DoctorType.GENERAL_PRACTITIONER);
+        }
+        for (DoctorType type : ranked) {
+            List<Doctor> doctors = doctorService.getDoctorsByType(type);
+            Doctor doctor = doctors.isEmpty() ? null : selection.select(type, doctors);
+            if (doctor != null) return doctor;
+        }
+        return null;
     }
 
     public static LocalDateTime suggestEarliestSlot(String doctorId, AppointmentService appointmentService) {
@@ -0,0 +1,72 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.interfaces.EntitySink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Binary snapshots (see BinarySnapshot). With mirrorCsv the CSV files are rewritten too, for people and tools.
+public class BinaryBackend extends JournaledBackend {
+    public static final String NAME = "binary";
+    private final boolean mirrorCsv;
+
+    public BinaryBackend(Path dir, boolean mirrorCsv) {
+        super(dir);
+        this.mirrorCsv = mirrorCsv;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    protected String extension() {
+        return "bin";
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <T> void readSnapshot(EntityTable<T> table, Path file, EntitySink<T> sink) throws IOException {
+        read(table, file, row -> sink.upsert((T) row));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <T> void writeSnapshot(EntityTable<T> table, Path file, Iterable<? extends T> rows) throws IOException {
+        Collection<? extends T> all = rows instanceof Collection<? extends T> collection ? collection : copy(rows);
+        if (table == EntityTable.DOCTORS) BinarySnapshot.writeDoctors(file, (Collection<Doctor>) all);
+        else if (table == EntityTable.PATIENTS) BinarySnapshot.writePatients(file, (Collection<Patient>) all);
+        else BinarySnapshot.writeAppointments(file, (Collection<Appointment>) all);
+        if (mirrorCsv) CsvBackend.writeCsv(table, csvFile(table), all);
+    }
+
+    // The snapshot is decoded from one read of the whole file, so the stream is over decoded rows
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <T> Stream<T> streamSnapshot(EntityTable<T> table, Path file) throws IOException {
+        List<T> rows = new ArrayList<>();
+        read(table, file, row -> rows.add((T) row));
+        return rows.stream();
+    }
+
+    private static void read(EntityTable<?> table, Path file, Consumer<Object> rows) throws IOException {
+        if (table == EntityTable.DOCTORS) BinarySnapshot.readDoctors(file, rows);
+        else if (table == EntityTable.PATIENTS) BinarySnapshot.readPatients(file, rows);
+        else BinarySnapshot.readAppointments(file, rows);
+    }
+
+    private static <T> List<T> copy(Iterable<? extends T> rows) {
+        List<T> list = new ArrayList<>();
+        rows.forEach(list::add);
+        return list;
+    }
+}
@@ -0,0 +1,436 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.enums.AppointmentStatus;
+import com.airtribe.meditrack.enums.DoctorType;
+import com.airtribe.meditrack.enums.GENDER;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Versioned binary snapshot of one entity table, read back with a single sequential read.
+// Layout: magic, version, entity kind, enum dictionaries, string dictionary, record count, records.
+// Unique strings (ids, names, contacts) are stored inline behind a varint length; repeated strings
+// (qualifications, blood groups, allergies, doctor ids on appointments) and enums are indexes into
+// the dictionaries in the header. Appointment times are minutes since the epoch.
+public class BinarySnapshot {
+    private static final int MAGIC = 0x4D54534E; // "MTSN"
+    public static final short VERSION = 1;
+    private static final byte KIND_DOCTOR = 1;
+    private static final byte KIND_PATIENT = 2;
+    private static final byte KIND_APPOINTMENT = 3;
+    private static final int NULL_MINUTE = Integer.MIN_VALUE;
+
+    private BinarySnapshot() {
+    }
+
+    // ============ Writers ============
+
+    // Records are counted as written, so a live concurrent collection may be passed directly
+    public static void writeDoctors(Path path, Collection<? extends Doctor> doctors) throws IOException {
+        Encoder out = new Encoder(doctors.size() * 96);
+        int count = 0;
+        for (Doctor d : doctors) {
+            count++;
+            writePerson(out, d.getId(), d.getName(), d.getAge(), d.getAddress(), d.getContactNumber(), d.getEmail(), d.getGender());
+            out.putEnum(d.getDoctorType());
+            out.putShared(d.getQualification());
+            out.putVarInt(d.getYearsOfExperience());
+            out.putShared(d.getOpdRoom());
+            out.putLong(d.getAvailableFrom() != null ? d.getAvailableFrom().toNanoOfDay() : -1L);
+            out.putLong(d.getAvailableTo() != null ? d.getAvailableTo().toNanoOfDay() : -1L);
+            out.putDouble(d.getConsultationFee());
+            out.putByte(dayMask(d.getAvailableDays()));
+        }
+        write(path, KIND_DOCTOR, out, count, GENDER.values(), DoctorType.values());
+    }
+
+    public static void writePatients(Path path, Collection<? extends Patient> patients) throws IOException {
+        Encoder out = new Encoder(patients.size() * 96);
+        int count = 0;
+        for (Patient p : patients) {
+            count++;
+            writePerson(out, p.getId(), p.getName(), p.getAge(), p.getAddress(), p.getContactNumber(), p.getEmail(), p.getGender());
+            out.putString(p.getMrn());
+            out.putString(p.getEmergencyContact());
+            out.putShared(p.getBloodGroup());
+            out.putSharedList(p.getKnownAllergies());
+            out.putSharedList(p.getChronicConditions());
+            out.putSharedList(p.getCurrentMedications());
+        }
+        write(path, KIND_PATIENT, out, count, GENDER.values());
+    }
+
+    public static void writeAppointments(Path path, Collection<? extends Appointment> appointments) throws IOException {
+        Encoder out = new Encoder(appointments.size() * 48);
+        int count = 0;
+        for (Appointment a : appointments) {
+            count++;
+            out.putString(a.getAppointmentId());
+            out.putShared(a.getDoctorId());
+            out.putShared(a.getPatientId());
+            out.putInt(a.getTimeSlot() != null
+                    ? Math.toIntExact(Math.floorDiv(a.getTimeSlot().toEpochSecond(ZoneOffset.UTC), 60)) : NULL_MINUTE);
+            out.putEnum(a.getStatus());
+        }
+        write(path, KIND_APPOINTMENT, out, count, AppointmentStatus.values());
+    }
+
+    private static void writePerson(Encoder out, String id, String name, int age, String address,
+                                    String contactNumber, String email, GENDER gender) {
+        out.putString(id);
+        out.putString(name);
+        out.putVarInt(age);
+        out.putString(address);
+        out.putString(contactNumber);
+        out.putString(email);
+        out.putEnum(gender);
+    }
+
+    // The header needs the finished string dictionary, so it is built after the records and both go out in one write
+    private static void write(Path path, byte kind, Encoder records, int count, Enum<?>[]... enumTables) throws IOException {
+        Encoder header = new Encoder(1024);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putByte(kind);
+        for (Enum<?>[] table : enumTables) {
+            header.putVarInt(table.length);
+            for (Enum<?> constant : table) header.putString(constant.name());
+        }
+        header.putVarInt(records.dictionary.size());
+        for (String value : records.dictionaryOrder) header.putString(value);
+        header.putInt(count);
+
+        ByteBuffer[] buffers = {header.flip(), records.flip()};
+        SafeFileWriter.write(path, channel -> {
+            while (buffers[1].hasRemaining()) channel.write(buffers);
+        });
+    }
+
+    // ============ Readers ============
+
+    // The list readers collect what the sink readers hand over one record at a time
+    public static List<Doctor> readDoctors(Path path) throws IOException {
+        List<Doctor> doctors = new ArrayList<>();
+        readDoctors(path, doctors::add);
+        return doctors;
+    }
+
+    public static void readDoctors(Path path, Consumer<? super Doctor> sink) throws IOException {
+        Decoder in = open(path, KIND_DOCTOR);
+        GENDER[] genders = in.enumTable(GENDER.class);
+        DoctorType[] types = in.enumTable(DoctorType.class);
+        String[] shared = in.dictionary();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            sink.accept(Doctor.builder()
+                    .id(in.getString())
+                    .name(in.getString())
+                    .age(in.getVarInt())
+                    .address(StringPool.ADDRESSES.intern(in.getString()))
+                    .contactNumber(in.getString())
+                    .email(in.getString())
+                    .gender(in.getEnum(genders))
+                    .doctorType(in.getEnum(types))
+                    .qualification(StringPool.CODES.intern(in.getShared(shared)))
+                    .yearsOfExperience(in.getVarInt())
+                    .opdRoom(StringPool.CODES.intern(in.getShared(shared)))
+                    .availableFrom(toLocalTime(in.getLong()))
+                    .availableTo(toLocalTime(in.getLong()))
+                    .consultationFee(in.getDouble())
+                    .availableDays(toDays(in.getByte()))
+                    .build());
+        }
+    }
+
+    public static List<Patient> readPatients(Path path) throws IOException {
+        List<Patient> patients = new ArrayList<>();
+        readPatients(path, patients::add);
+        return patients;
+    }
+
+    public static void readPatients(Path path, Consumer<? super Patient> sink) throws IOException {
+        Decoder in = open(path, KIND_PATIENT);
+        GENDER[] genders = in.enumTable(GENDER.class);
+        String[] shared = in.dictionary();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            sink.accept(Patient.builder()
+                    .id(in.getString())
+                    .name(in.getString())
+                    .age(in.getVarInt())
+                    .address(StringPool.ADDRESSES.intern(in.getString()))
+                    .contactNumber(in.getString())
+                    .email(in.getString())
+                    .gender(in.getEnum(genders))
+                    .mrn(in.getString())
+                    .emergencyContact(in.getString())
+                    .bloodGroup(StringPool.CODES.intern(in.getShared(shared)))
+                    .knownAllergies(in.getSharedList(shared))
+                    .chronicConditions(in.getSharedList(shared))
+                    .currentMedications(in.getSharedList(shared))
+                    .build());
+        }
+    }
+
+    public static List<Appointment> readAppointments(Path path) throws IOException {
+        List<Appointment> appointments = new ArrayList<>();
+        readAppointments(path, appointments::add);
+        return appointments;
+    }
+
+    public static void readAppointments(Path path, Consumer<? super Appointment> sink) throws IOException {
+        Decoder in = open(path, KIND_APPOINTMENT);
+        AppointmentStatus[] statuses = in.enumTable(AppointmentStatus.class);
+        String[] shared = in.dictionary();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            String id = in.getString();
+            String doctorId = in.getShared(shared);
+            String patientId = in.getShared(shared);
+            int minute = in.getInt();
+            AppointmentStatus status = in.getEnum(statuses);
+            sink.accept(Appointment.builder()
+                    .appointmentId(id)
+                    .doctorId(doctorId)
+                    .patientId(patientId)
+                    .timeSlot(minute == NULL_MINUTE ? null : LocalDateTime.ofEpochSecond(minute * 60L, 0, ZoneOffset.UTC))
+                    .status(status != null ? status : AppointmentStatus.CONFIRMED)
+                    .build());
+        }
+    }
+
+    // The whole file in one sequential read, then decoded from memory
+    private static Decoder open(Path path, byte kind) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) break;
+            }
+        }
+        buffer.flip();
+        if (buffer.remaining() < 7 || buffer.getInt() != MAGIC)
+            throw new IOException("Not a MediTrack snapshot: " + path.getFileName());
+        short version = buffer.getShort();
+        if (version > VERSION)
+            throw new IOException("Unsupported snapshot version " + version + " in " + path.getFileName());
+        if (buffer.get() != kind)
+            throw new IOException("Snapshot " + path.getFileName() + " holds a different entity type");
+        return new Decoder(buffer);
+    }
+
+    private static byte dayMask(List<DayOfWeek> days) {
+        int mask = 0;
+        if (days != null) {
+            for (DayOfWeek day : days) mask |= 1 << (day.getValue() - 1);
+        }
+        return (byte) mask;
+    }
+
+    private static List<DayOfWeek> toDays(byte mask) {
+        List<DayOfWeek> days = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((mask & (1 << (day.getValue() - 1))) != 0) days.add(day);
+        }
+        return days;
+    }
+
+    private static LocalTime toLocalTime(long nanoOfDay) {
+        return nanoOfDay < 0 ? null : LocalTime.ofNanoOfDay(nanoOfDay);
+    }
+
+    // ============ Encoding ============
+
+    private static final class Encoder {
+        private ByteBuffer buffer;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> dictionaryOrder = new ArrayList<>();
+
+        Encoder(int initialCapacity) {
+            buffer = ByteBuffer.allocate(Math.max(64, initialCapacity));
+        }
+
+        ByteBuffer flip() {
+            return buffer.flip();
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() >= bytes) return;
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+
+        void putByte(byte value) {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putShort(short value) {
+            ensure(2);
+            buffer.putShort(value);
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putDouble(double value) {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        // Unsigned LEB128; negative values take five bytes
+        void putVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        // Length + 1 as a varint (0 = null), then UTF-8 bytes
+        void putString(String value) {
+            if (value == null) {
+                putVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarInt(bytes.length + 1);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        // Dictionary index + 1 (0 = null)
+        void putShared(String value) {
+            if (value == null) {
+                putVarInt(0);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index == null) {
+                index = dictionaryOrder.size();
+                dictionary.put(value, index);
+                dictionaryOrder.add(value);
+            }
+            putVarInt(index + 1);
+        }
+
+        void putSharedList(List<String> values) {
+            if (values == null) {
+                putVarInt(0);
+                return;
+            }
+            putVarInt(values.size());
+            for (String value : values) putShared(value);
+        }
+
+        void putEnum(Enum<?> value) {
+            putVarInt(value == null ? 0 : value.ordinal() + 1);
+        }
+    }
+
+    private static final class Decoder {
+        private final ByteBuffer buffer;
+        private final byte[] bytes;
+
+        Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.bytes = buffer.array();
+        }
+
+        byte getByte() {
+            return buffer.get();
+        }
+
+        int getInt() {
+            return buffer.getInt();
+        }
+
+        long getLong() {
+            return buffer.getLong();
+        }
+
+        double getDouble() {
+            return buffer.getDouble();
+        }
+
+        int getVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+
+        String getString() {
+            int length = getVarInt() - 1;
+            if (length < 0) return null;
+            int position = buffer.position();
+            buffer.position(position + length);
+            return new String(bytes, buffer.arrayOffset() + position, length, StandardCharsets.UTF_8);
+        }
+
+        String getShared(String[] dictionary) {
+            int index = getVarInt();
+            return index == 0 ? null : dictionary[index - 1];
+        }
+
+        List<String> getSharedList(String[] dictionary) {
+            String[] values = new String[getVarInt()];
+            for (int i = 0; i < values.length; i++) values[i] = getShared(dictionary);
+            return StringPool.CODES.internList(values);
+        }
+
+        String[] dictionary() {
+            String[] values = new String[getVarInt()];
+            for (int i = 0; i < values.length; i++) values[i] = getString();
+            return values;
+        }
+
+        // Maps the file's enum names onto the current constants; names that no longer exist read as null
+        <E extends Enum<E>> E[] enumTable(Class<E> type) {
+            @SuppressWarnings("unchecked")
+            E[] table = (E[]) java.lang.reflect.Array.newInstance(type, getVarInt());
+            for (int i = 0; i < table.length; i++) {
+                String name = getString();
+                try {
+                    table[i] = Enum.valueOf(type, name);
+                } catch (IllegalArgumentException e) {
+                    table[i] = null;
+                }
+            }
+            return table;
+        }
+
+        <E extends Enum<E>> E getEnum(E[] table) {
+            int index = getVarInt();
+            return index == 0 ? null : table[index - 1];
+        }
+    }
+}
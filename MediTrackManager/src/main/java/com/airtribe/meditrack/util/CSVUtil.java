@@ -7,20 +7,22 @@ import com.airtribe.meditrack.enums.AppointmentStatus;
 import com.airtribe.meditrack.enums.DoctorType;
 import com.airtribe.meditrack.enums.GENDER;
 import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
 
 import java.io.*;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
 
 public class CSVUtil {
 
@@ -70,17 +72,17 @@ public class CSVUtil {
     }
 
 
-    private static final String[] PATIENT_HEADERS = {
+    static final String[] PATIENT_HEADERS = {
             "id", "name", "age", "address", "contactNumber", "email", "gender",
             "mrn", "emergencyContact", "bloodGroup", "knownAllergies", "chronicConditions", "currentMedications"
     };
 
-    private static final String[] DOCTOR_HEADERS = {
+    static final String[] DOCTOR_HEADERS = {
             "id", "name", "age", "address", "contactNumber", "email", "gender",
             "doctorType", "qualification", "yearsOfExperience", "opdRoom", "availableFrom", "availableTo", "availableDays"
     };
 
-    private static final String[] APPOINTMENT_HEADERS = {
+    static final String[] APPOINTMENT_HEADERS = {
             "appointmentId", "doctorId", "patientId", "timeSlot", "status"
     };
 
@@ -88,167 +90,202 @@ public class CSVUtil {
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ISO_LOCAL_TIME;
 
 
-    public static void writePatientsToCSV(List<Patient> patients) throws IOException {
-        Path path = Paths.get(PATIENT_CSV);
-        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(PATIENT_HEADERS))) {
-
-            for (Patient patient : patients) {
-                csvPrinter.printRecord(
-                        patient.getId(),
-                        patient.getName(),
-                        patient.getAge(),
-                        patient.getAddress(),
-                        patient.getContactNumber(),
-                        patient.getEmail(),
-                        patient.getGender() != null ? patient.getGender().name() : "",
-                        patient.getMrn(),
-                        patient.getEmergencyContact(),
-                        patient.getBloodGroup(),
-                        String.join(";", patient.getKnownAllergies() != null ? patient.getKnownAllergies() : new ArrayList<>()),
-                        String.join(";", patient.getChronicConditions() != null ? patient.getChronicConditions() : new ArrayList<>()),
-                        String.join(";", patient.getCurrentMedications() != null ? patient.getCurrentMedications() : new ArrayList<>())
-                );
+    public static void writePatientsToCSV(Iterable<? extends Patient> patients) throws IOException {
+        writePatientsToCSV(patients, Paths.get(PATIENT_CSV));
+    }
+
+    // Written to a temp file and renamed over the old one, so a crash mid-write cannot lose the table.
+    // Rows are printed as the iterable yields them; pass stream::iterator to export a Stream.
+    public static void writePatientsToCSV(Iterable<? extends Patient> patients, Path path) throws IOException {
+        writeRows(patients, path, PATIENT_HEADERS, CSVUtil::toRow);
+    }
+
+    static <T> void writeRows(Iterable<? extends T> rows, Path path, String[] headers,
+                              Function<? super T, Object[]> toRow) throws IOException {
+        SafeFileWriter.write(path, channel -> {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(headers));
+
+            for (T row : rows) {
+                csvPrinter.printRecord(toRow.apply(row));
             }
             csvPrinter.flush();
-        }
+        });
     }
 
     public static List<Patient> readPatientsFromCSV() throws IOException {
-        List<Patient> patients = new ArrayList<>();
-        Path path = Paths.get(PATIENT_CSV);
+        return readPatientsFromCSV(Paths.get(PATIENT_CSV));
+    }
 
-        if (!Files.exists(path)) {
-            return patients;
-        }
+    // Chunked, parallel parse with columns taken by position (see ParallelCSVLoader)
+    public static List<Patient> readPatientsFromCSV(Path path) throws IOException {
+        return ParallelCSVLoader.load(path, PATIENT_HEADERS, CSVUtil::patientFromFields);
+    }
 
-        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
-
-            csvParser.forEach(record -> {
-                Patient patient = Patient.builder()
-                        .id(record.get("id"))
-                        .name(record.get("name"))
-                        .age(Integer.parseInt(record.get("age")))
-                        .address(record.get("address"))
-                        .contactNumber(record.get("contactNumber"))
-                        .email(record.get("email"))
-                        .gender(parseGender(record.get("gender")))
-                        .mrn(record.get("mrn"))
-                        .emergencyContact(record.get("emergencyContact"))
-                        .bloodGroup(record.get("bloodGroup"))
-                        .knownAllergies(parseList(record.get("knownAllergies")))
-                        .chronicConditions(parseList(record.get("chronicConditions")))
-                        .currentMedications(parseList(record.get("currentMedications")))
-                        .build();
-                patients.add(patient);
-            });
-        }
-        return patients;
-    }
-
-    public static void writeDoctorsToCSV(List<Doctor> doctors) throws IOException {
-        Path path = Paths.get(DOCTOR_CSV);
-        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
-             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(DOCTOR_HEADERS))) {
-
-            for (Doctor doctor : doctors) {
-                csvPrinter.printRecord(
-                        doctor.getId(),
-                        doctor.getName(),
-                        doctor.getAge(),
-                        doctor.getAddress(),
-                        doctor.getContactNumber(),
-                        doctor.getEmail(),
-                        doctor.getGender() != null ? doctor.getGender().name() : "",
-                        doctor.getDoctorType() != null ? doctor.getDoctorType().name() : "",
-                        doctor.getQualification(),
-                        doctor.getYearsOfExperience(),
-                        doctor.getOpdRoom(),
-                        doctor.getAvailableFrom() != null ? doctor.getAvailableFrom().format(TIME_FORMATTER) : "",
-                        doctor.getAvailableTo() != null ? doctor.getAvailableTo().format(TIME_FORMATTER) : "",
-                        formatDayOfWeekList(doctor.getAvailableDays())
-                );
-            }
-            csvPrinter.flush();
-        }
+    // Rows one chunk at a time in constant memory; use try-with-resources, the stream holds the file open
+    public static Stream<Patient> streamPatients(Path path) throws IOException {
+        return ParallelCSVLoader.stream(path, PATIENT_HEADERS, CSVUtil::patientFromFields);
+    }
+
+    public static void writeDoctorsToCSV(Iterable<? extends Doctor> doctors) throws IOException {
+        writeDoctorsToCSV(doctors, Paths.get(DOCTOR_CSV));
+    }
+
+    public static void writeDoctorsToCSV(Iterable<? extends Doctor> doctors, Path path) throws IOException {
+        writeRows(doctors, path, DOCTOR_HEADERS, CSVUtil::toRow);
     }
 
     public static List<Doctor> readDoctorsFromCSV() throws IOException {
-        List<Doctor> doctors = new ArrayList<>();
-        Path path = Paths.get(DOCTOR_CSV);
+        return readDoctorsFromCSV(Paths.get(DOCTOR_CSV));
+    }
 
-        if (!Files.exists(path)) {
-            return doctors;
-        }
+    public static List<Doctor> readDoctorsFromCSV(Path path) throws IOException {
+        return ParallelCSVLoader.load(path, DOCTOR_HEADERS, CSVUtil::doctorFromFields);
+    }
 
-        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
-
-            csvParser.forEach(record -> {
-                Doctor doctor = Doctor.builder()
-                        .id(record.get("id"))
-                        .name(record.get("name"))
-                        .age(Integer.parseInt(record.get("age")))
-                        .address(record.get("address"))
-                        .contactNumber(record.get("contactNumber"))
-                        .email(record.get("email"))
-                        .gender(parseGender(record.get("gender")))
-                        .doctorType(parseDoctorType(record.get("doctorType")))
-                        .qualification(record.get("qualification"))
-                        .yearsOfExperience(Integer.parseInt(record.get("yearsOfExperience")))
-                        .opdRoom(record.get("opdRoom"))
-                        .availableFrom(parseLocalTime(record.get("availableFrom")))
-                        .availableTo(parseLocalTime(record.get("availableTo")))
-                        .availableDays(parseDayOfWeekList(record.get("availableDays")))
-                        .build();
-                doctors.add(doctor);
-            });
-        }
-        return doctors;
-    }
-
-    public static void writeAppointmentsToCSV(List<Appointment> appointments) throws IOException {
-        Path path = Paths.get(APPOINTMENT_CSV);
-        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
-             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(APPOINTMENT_HEADERS))) {
-
-            for (Appointment appointment : appointments) {
-                csvPrinter.printRecord(
-                        appointment.getAppointmentId(),
-                        appointment.getDoctorId(),
-                        appointment.getPatientId(),
-                        appointment.getTimeSlot() != null ? appointment.getTimeSlot().format(DATE_TIME_FORMATTER) : "",
-                        appointment.getStatus() != null ? appointment.getStatus().name() : ""
-                );
-            }
-            csvPrinter.flush();
-        }
+    public static Stream<Doctor> streamDoctors(Path path) throws IOException {
+        return ParallelCSVLoader.stream(path, DOCTOR_HEADERS, CSVUtil::doctorFromFields);
+    }
+
+    public static void writeAppointmentsToCSV(Iterable<? extends Appointment> appointments) throws IOException {
+        writeAppointmentsToCSV(appointments, Paths.get(APPOINTMENT_CSV));
+    }
+
+    public static void writeAppointmentsToCSV(Iterable<? extends Appointment> appointments, Path path) throws IOException {
+        writeRows(appointments, path, APPOINTMENT_HEADERS, CSVUtil::toRow);
     }
 
     public static List<Appointment> readAppointmentsFromCSV() throws IOException {
-        List<Appointment> appointments = new ArrayList<>();
-        Path path = Paths.get(APPOINTMENT_CSV);
+        return readAppointmentsFromCSV(Paths.get(APPOINTMENT_CSV));
+    }
 
-        if (!Files.exists(path)) {
-            return appointments;
-        }
+    public static List<Appointment> readAppointmentsFromCSV(Path path) throws IOException {
+        return ParallelCSVLoader.load(path, APPOINTMENT_HEADERS, CSVUtil::appointmentFromFields);
+    }
 
-        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
-
-            csvParser.forEach(record -> {
-                Appointment appointment = Appointment.builder()
-                        .appointmentId(record.get("appointmentId"))
-                        .doctorId(record.get("doctorId"))
-                        .patientId(record.get("patientId"))
-                        .timeSlot(parseLocalDateTime(record.get("timeSlot")))
-                        .status(parseAppointmentStatus(record.get("status")))
-                        .build();
-                appointments.add(appointment);
-            });
-        }
-        return appointments;
+    public static Stream<Appointment> streamAppointments(Path path) throws IOException {
+        return ParallelCSVLoader.stream(path, APPOINTMENT_HEADERS, CSVUtil::appointmentFromFields);
+    }
+
+    // ============ Row Mapping (shared with the write-ahead log) ============
+
+    public static Object[] toRow(Patient patient) {
+        return new Object[]{
+                patient.getId(),
+                patient.getName(),
+                patient.getAge(),
+                patient.getAddress(),
+                patient.getContactNumber(),
+                patient.getEmail(),
+                patient.getGender() != null ? patient.getGender().name() : "",
+                patient.getMrn(),
+                patient.getEmergencyContact(),
+                patient.getBloodGroup(),
+                String.join(";", patient.getKnownAllergies() != null ? patient.getKnownAllergies() : new ArrayList<>()),
+                String.join(";", patient.getChronicConditions() != null ? patient.getChronicConditions() : new ArrayList<>()),
+                String.join(";", patient.getCurrentMedications() != null ? patient.getCurrentMedications() : new ArrayList<>())
+        };
+    }
+
+    public static Object[] toRow(Doctor doctor) {
+        return new Object[]{
+                doctor.getId(),
+                doctor.getName(),
+                doctor.getAge(),
+                doctor.getAddress(),
+                doctor.getContactNumber(),
+                doctor.getEmail(),
+                doctor.getGender() != null ? doctor.getGender().name() : "",
+                doctor.getDoctorType() != null ? doctor.getDoctorType().name() : "",
+                doctor.getQualification(),
+                doctor.getYearsOfExperience(),
+                doctor.getOpdRoom(),
+                doctor.getAvailableFrom() != null ? doctor.getAvailableFrom().format(TIME_FORMATTER) : "",
+                doctor.getAvailableTo() != null ? doctor.getAvailableTo().format(TIME_FORMATTER) : "",
+                formatDayOfWeekList(doctor.getAvailableDays())
+        };
+    }
+
+    public static Object[] toRow(Appointment appointment) {
+        return new Object[]{
+                appointment.getAppointmentId(),
+                appointment.getDoctorId(),
+                appointment.getPatientId(),
+                appointment.getTimeSlot() != null ? appointment.getTimeSlot().format(DATE_TIME_FORMATTER) : "",
+                appointment.getStatus() != null ? appointment.getStatus().name() : ""
+        };
+    }
+
+    // Columns are read by position, in header order, starting at the given offset
+    public static Patient patientFromRow(CSVRecord row, int offset) {
+        return patientFrom(i -> row.get(offset + i));
+    }
+
+    public static Doctor doctorFromRow(CSVRecord row, int offset) {
+        return doctorFrom(i -> row.get(offset + i));
+    }
+
+    public static Appointment appointmentFromRow(CSVRecord row, int offset) {
+        return appointmentFrom(i -> row.get(offset + i));
+    }
+
+    public static Patient patientFromFields(String[] fields) {
+        return patientFrom(i -> fields[i]);
+    }
+
+    public static Doctor doctorFromFields(String[] fields) {
+        return doctorFrom(i -> fields[i]);
+    }
+
+    public static Appointment appointmentFromFields(String[] fields) {
+        return appointmentFrom(i -> fields[i]);
+    }
+
+    private static Patient patientFrom(IntFunction<String> column) {
+        return Patient.builder()
+                .id(column.apply(0))
+                .name(column.apply(1))
+                .age(Integer.parseInt(column.apply(2)))
+                .address(StringPool.ADDRESSES.intern(column.apply(3)))
+                .contactNumber(column.apply(4))
+                .email(column.apply(5))
+                .gender(parseGender(column.apply(6)))
+                .mrn(column.apply(7))
+                .emergencyContact(column.apply(8))
+                .bloodGroup(StringPool.CODES.intern(column.apply(9)))
+                .knownAllergies(parseList(column.apply(10)))
+                .chronicConditions(parseList(column.apply(11)))
+                .currentMedications(parseList(column.apply(12)))
+                .build();
+    }
+
+    private static Doctor doctorFrom(IntFunction<String> column) {
+        return Doctor.builder()
+                .id(column.apply(0))
+                .name(column.apply(1))
+                .age(Integer.parseInt(column.apply(2)))
+                .address(StringPool.ADDRESSES.intern(column.apply(3)))
+                .contactNumber(column.apply(4))
+                .email(column.apply(5))
+                .gender(parseGender(column.apply(6)))
+                .doctorType(parseDoctorType(column.apply(7)))
+                .qualification(StringPool.CODES.intern(column.apply(8)))
+                .yearsOfExperience(Integer.parseInt(column.apply(9)))
+                .opdRoom(StringPool.CODES.intern(column.apply(10)))
+                .availableFrom(parseLocalTime(column.apply(11)))
+                .availableTo(parseLocalTime(column.apply(12)))
+                .availableDays(parseDayOfWeekList(column.apply(13)))
+                .build();
+    }
+
+    private static Appointment appointmentFrom(IntFunction<String> column) {
+        return Appointment.builder()
+                .appointmentId(column.apply(0))
+                .doctorId(column.apply(1))
+                .patientId(column.apply(2))
+                .timeSlot(parseLocalDateTime(column.apply(3)))
+                .status(parseAppointmentStatus(column.apply(4)))
+                .build();
     }
 
     // ============ Helper Methods ============
@@ -309,11 +346,12 @@ public class CSVUtil {
         }
     }
 
+    // Immutable and pooled: rows with the same allergies, conditions or medications share one list
     private static List<String> parseList(String value) {
         if (value == null || value.isEmpty()) {
-            return new ArrayList<>();
+            return List.of();
         }
-        return Arrays.asList(value.split(";"));
+        return StringPool.CODES.internList(value.split(";"));
     }
 
     private static String formatDayOfWeekList(List<DayOfWeek> days) {
@@ -0,0 +1,48 @@
+package com.airtribe.meditrack.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// Dirty set of one service: the entities upserted or deleted since the last flush, by primary key.
+// Only the latest change per key is kept, so repeated edits to one entity flush as a single record.
+public class ChangeTracker<T> {
+    public enum Op {
+        UPSERT, DELETE
+    }
+
+    public record Change<T>(Op op, String key, T entity) {
+    }
+
+    private final LinkedHashMap<String, Change<T>> pending = new LinkedHashMap<>();
+
+    public synchronized void upserted(String key, T entity) {
+        if (key != null) pending.put(key, new Change<>(Op.UPSERT, key, entity));
+    }
+
+    public synchronized void deleted(String key, T entity) {
+        if (key != null) pending.put(key, new Change<>(Op.DELETE, key, entity));
+    }
+
+    // Hands over everything pending and starts a fresh dirty set
+    public synchronized List<Change<T>> drain() {
+        List<Change<T>> changes = new ArrayList<>(pending.values());
+        pending.clear();
+        return changes;
+    }
+
+    // Puts back changes whose flush failed, unless their key has changed again since
+    public synchronized void restore(List<Change<T>> changes) {
+        for (Change<T> change : changes) {
+            pending.putIfAbsent(change.key(), change);
+        }
+    }
+
+    public synchronized void clear() {
+        pending.clear();
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,49 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.interfaces.EntitySink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+// The original format: one CSV file per table, parsed in parallel chunks (see ParallelCSVLoader)
+public class CsvBackend extends JournaledBackend {
+    public static final String NAME = "csv";
+
+    public CsvBackend(Path dir) {
+        super(dir);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    protected String extension() {
+        return "csv";
+    }
+
+    @Override
+    protected <T> void readSnapshot(EntityTable<T> table, Path file, EntitySink<T> sink) throws IOException {
+        drain(streamCsv(table, file), sink);
+    }
+
+    @Override
+    protected <T> void writeSnapshot(EntityTable<T> table, Path file, Iterable<? extends T> rows) throws IOException {
+        writeCsv(table, file, rows);
+    }
+
+    @Override
+    protected <T> Stream<T> streamSnapshot(EntityTable<T> table, Path file) throws IOException {
+        return streamCsv(table, file);
+    }
+
+    static <T> Stream<T> streamCsv(EntityTable<T> table, Path file) throws IOException {
+        return ParallelCSVLoader.stream(file, table.headers(), table.fromFields());
+    }
+
+    static <T> void writeCsv(EntityTable<T> table, Path file, Iterable<? extends T> rows) throws IOException {
+        CSVUtil.writeRows(rows, file, table.headers(), table.toRow());
+    }
+}
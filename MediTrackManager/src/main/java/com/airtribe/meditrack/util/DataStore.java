@@ -1,61 +1,206 @@
 package com.airtribe.meditrack.util;
 
+import com.airtribe.meditrack.constants.Constants;
 import com.airtribe.meditrack.entity.Appointment;
 import com.airtribe.meditrack.entity.Doctor;
 import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.interfaces.EntitySink;
+import com.airtribe.meditrack.interfaces.StorageBackend;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 
 public class DataStore<T> {
 
+    // Storage for every DataStore, created from configuration on first use (see StorageBackends)
+    private static StorageBackend backend;
+
+    // Entity class this store handles; null for untyped stores, which infer it from the data
+    private final Class<T> type;
+
     public DataStore() {
+        this(null);
     }
 
-    private void saveDoctors(Set<Doctor> doctors) throws IOException {
-        CSVUtil.writeDoctorsToCSV(new java.util.ArrayList<>(doctors));
+    public DataStore(Class<T> type) {
+        this.type = type;
     }
 
-    private void savePatients(Set<Patient> patients) throws IOException {
-        CSVUtil.writePatientsToCSV(new java.util.ArrayList<>(patients));
+    public static synchronized StorageBackend backend() {
+        if (backend == null) backend = StorageBackends.fromConfig(Paths.get(CSVUtil.getResourceDirectory()));
+        return backend;
     }
 
-    private void saveAppointments(Set<Appointment> appointments) throws IOException {
-        CSVUtil.writeAppointmentsToCSV(new java.util.ArrayList<>(appointments));
+    // Swaps the backend, closing the one in use
+    public static synchronized void useBackend(StorageBackend next) throws IOException {
+        if (backend != null && backend != next) backend.close();
+        backend = next;
     }
 
+    // Full snapshot; also compacts the entity's log, since everything in it is now in the file.
+    // An untyped store cannot tell what an empty set holds, so only a typed one can save an empty table.
+    @SuppressWarnings("unchecked")
     public void save(Set<T> data) throws IOException {
-        if (data.isEmpty()) {
-            return;
+        Class<T> kind = (Class<T>) entityType(data);
+        if (kind != null) backend().snapshot(kind, data);
+    }
+
+    // Journaled save: appends one change to the entity's log instead of rewriting the whole file
+    public void journal(T entity) throws IOException {
+        saveChange(ChangeTracker.Op.UPSERT, entity);
+    }
+
+    public void journalDelete(T entity) throws IOException {
+        saveChange(ChangeTracker.Op.DELETE, entity);
+    }
+
+    private void saveChange(ChangeTracker.Op op, T entity) throws IOException {
+        EntityTable<T> table = EntityTable.ofEntity(entity);
+        backend().saveDelta(table.type(),
+                List.of(new ChangeTracker.Change<>(op, table.key().apply(entity), entity)));
+    }
+
+    // Incremental save: only the entities a service marked dirty since the last flush are appended,
+    // as one log batch that is never split across fsyncs. On failure the changes go back to the tracker for a retry.
+    public int flush(ChangeTracker<T> tracker) throws IOException {
+        List<ChangeTracker.Change<T>> changes = tracker.drain();
+        if (changes.isEmpty()) {
+            return 0;
         }
+        try {
+            Class<T> kind = EntityTable.ofEntity(changes.get(0).entity()).type();
+            backend().saveDelta(kind, changes);
+        } catch (IOException | RuntimeException e) {
+            tracker.restore(changes);
+            throw e;
+        }
+        return changes.size();
+    }
+
+    // Periodic compaction: folds the log into a fresh snapshot once it grows past the threshold
+    public void compactIfNeeded(Set<T> data) throws IOException {
+        Class<?> kind = entityType(data);
+        if (kind != null && backend().deltaSize(kind) >= Constants.WAL_COMPACTION_THRESHOLD) {
+            save(data);
+        }
+    }
 
-        // Determine the type of data and save accordingly
-        Object firstElement = data.iterator().next();
-        if (firstElement instanceof Doctor) {
-            saveDoctors((Set<Doctor>) data);
-        } else if (firstElement instanceof Patient) {
-            savePatients((Set<Patient>) data);
-        } else if (firstElement instanceof Appointment) {
-            saveAppointments((Set<Appointment>) data);
+    // Same, for a typed store whose data is costly to gather: the supplier only runs when compaction is due
+    public void compactIfNeeded(Supplier<Set<T>> data) throws IOException {
+        if (type != null && backend().deltaSize(type) >= Constants.WAL_COMPACTION_THRESHOLD) {
+            save(data.get());
         }
     }
 
+    private Class<?> entityType(Set<T> data) {
+        if (type != null) return EntityTable.of(type).type();
+        return data.isEmpty() ? null : EntityTable.ofEntity(data.iterator().next()).type();
+    }
+
+    // Recovery: snapshot rows stream into the sink, then every logged change is replayed on top of them.
+    // Nothing holds the whole table besides the sink itself.
+    public static void loadDoctors(EntitySink<Doctor> sink) throws IOException {
+        backend().load(Doctor.class, sink);
+    }
+
+    public static void loadPatients(EntitySink<Patient> sink) throws IOException {
+        backend().load(Patient.class, sink);
+    }
+
+    public static void loadAppointments(EntitySink<Appointment> sink) throws IOException {
+        backend().load(Appointment.class, sink);
+    }
+
+    // Lazy startup: only the key columns and row offsets of the CSV snapshot are read (see PatientRowIndex).
+    // Null if the backend keeps its patient snapshot in another format; load eagerly then.
+    public static PatientRowIndex indexPatients() throws IOException {
+        if (!(backend() instanceof CsvBackend csv)) return null;
+        return PatientRowIndex.scan(csv.snapshotFile(EntityTable.PATIENTS));
+    }
+
+    // The patient changes saved after the snapshot, to replay over an index from indexPatients
+    public static void loadPatientChanges(EntitySink<Patient> sink) throws IOException {
+        backend().loadDelta(Patient.class, sink);
+    }
+
     public static HashSet<Doctor> loadDoctors() throws IOException {
-        List<Doctor> doctorList = CSVUtil.readDoctorsFromCSV();
-        return new HashSet<>(doctorList);
+        Map<String, Doctor> byId = new ConcurrentHashMap<>();
+        loadDoctors(collectInto(byId, Doctor::getId));
+        return new HashSet<>(byId.values());
     }
 
     public static HashSet<Patient> loadPatients() throws IOException {
-        List<Patient> patientList = CSVUtil.readPatientsFromCSV();
-        return new HashSet<>(patientList);
+        Map<String, Patient> byMrn = new ConcurrentHashMap<>();
+        loadPatients(collectInto(byMrn, Patient::getMrn));
+        return new HashSet<>(byMrn.values());
     }
 
     public static HashSet<Appointment> loadAppointments() throws IOException {
-        List<Appointment> appointmentList = CSVUtil.readAppointmentsFromCSV();
-        return new HashSet<>(appointmentList);
+        Map<String, Appointment> byId = new ConcurrentHashMap<>();
+        loadAppointments(collectInto(byId, Appointment::getAppointmentId));
+        return new HashSet<>(byId.values());
+    }
+
+    // Startup load: the three entity files (each parsed in parallel chunks) are read at the same time.
+    // A null sink skips that table.
+    public static void loadAll(EntitySink<Doctor> doctors, EntitySink<Patient> patients,
+                               EntitySink<Appointment> appointments) throws IOException {
+        CompletableFuture<Void> doctorLoad = loadAsync(() -> { if (doctors != null) loadDoctors(doctors); });
+        CompletableFuture<Void> patientLoad = loadAsync(() -> { if (patients != null) loadPatients(patients); });
+        CompletableFuture<Void> appointmentLoad = loadAsync(() -> { if (appointments != null) loadAppointments(appointments); });
+        try {
+            CompletableFuture.allOf(doctorLoad, patientLoad, appointmentLoad).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw e;
+        }
+    }
+
+    private interface Loader {
+        void load() throws IOException;
+    }
+
+    private static CompletableFuture<Void> loadAsync(Loader loader) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                loader.load();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Closes the backend's logs; the next use reopens them, from configuration again
+    public static synchronized void closeJournals() throws IOException {
+        if (backend != null) backend.close();
+        backend = null;
+    }
+
+    // Last write per key wins, as the logs assume
+    private static <E> EntitySink<E> collectInto(Map<String, E> byKey, Function<E, String> key) {
+        return new EntitySink<>() {
+            @Override
+            public void upsert(E entity) {
+                byKey.put(Objects.toString(key.apply(entity), ""), entity);
+            }
+
+            @Override
+            public void delete(String k) {
+                byKey.remove(k);
+            }
+        };
     }
 
 }
@@ -3,7 +3,6 @@ package com.airtribe.meditrack.util;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 
 public class DateUtil {
 
@@ -35,23 +34,14 @@ public class DateUtil {
 //Example: 10:12 -> 10:30, 10:00 -> 10:00
     public static LocalDateTime roundToNextSlot(LocalDateTime dateTime) {
         if (dateTime == null) return LocalDateTime.now();
-
-        LocalDateTime t = dateTime.truncatedTo(ChronoUnit.MINUTES);
-        int minute = t.getMinute();
-
-        if (minute == 0 || minute == 30) return t;
-
-        if (minute < 30) {
-            return t.withMinute(30);
-        } else {
-            return t.plusHours(1).withMinute(0);
-        }
+        return SlotTime.toDateTime(SlotTime.roundUp(dateTime));
     }
 //  Checks if a time slot fits within a start and end time range.
 //  Ensures the appointment finishes before the end time.
     public static boolean isTimeWithinRange(LocalTime target, LocalTime start, LocalTime end) {
-        // target >= start AND (target + 30min) <= end
-        return !target.isBefore(start) &&
-                !target.plusMinutes(SLOT_DURATION_MINUTES).isAfter(end);
+        // target >= start AND (target + 30min) <= end, in nanos of the day so a late slot cannot wrap past midnight
+        long at = target.toNanoOfDay();
+        return at >= start.toNanoOfDay() &&
+                at + SlotTime.SLOT_SECONDS * 1_000_000_000L <= SlotTime.endSecond(end) * 1_000_000_000L;
     }
 }
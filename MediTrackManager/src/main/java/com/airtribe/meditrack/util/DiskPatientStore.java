@@ -0,0 +1,471 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Patient;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Disk-resident patient registry for registries larger than the heap. Every save appends the patient's
+// CSV row to a data file (<base>.dat); a memory-mapped open-addressing hash table (<base>.idx) maps a
+// 64-bit hash of each MRN to the offset of its latest record. Only a bounded LRU set of patients lives on
+// the heap; the rest is parsed back from the data file, usually still in the OS page cache, on demand.
+// The data file is the source of truth: an index not closed cleanly is rebuilt from it on open.
+public class DiskPatientStore implements Closeable {
+    private static final int MAGIC = 0x4D545058;
+    private static final int HEADER_BYTES = 64;
+    private static final int H_MAGIC = 0;
+    private static final int H_SLOTS = 4;
+    private static final int H_LIVE = 8;
+    private static final int H_TOMBSTONES = 12;
+    private static final int H_CLEAN = 16;
+    private static final int H_DATA_LENGTH = 24;
+    private static final int H_DEAD_BYTES = 32;
+    // Each slot is [hash][record offset + 1], so a zero-filled slot reads as empty
+    private static final int SLOT_BYTES = 16;
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+    private static final int MIN_SLOTS = 1024;
+    private static final int MAX_SLOTS = 1 << 26;
+    private static final double MAX_LOAD = 0.7;
+    // Records are framed as [length][crc32][op][key length][key][CSV row], like the write-ahead log
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final byte OP_UPSERT = 'U';
+    private static final byte OP_DELETE = 'D';
+    // Most records fit, so a lookup is a single read
+    private static final int READ_AHEAD_BYTES = 512;
+    private static final long COMPACTION_MIN_BYTES = 1 << 20;
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final Map<String, Patient> hot;
+    private FileChannel data;
+    private MappedByteBuffer index;
+    private int slots;
+    private int live;
+    private int tombstones;
+    private long dataLength;
+    private long deadBytes;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(READ_AHEAD_BYTES);
+
+    public DiskPatientStore(Path base, int hotCapacity) throws IOException {
+        this.dataPath = base.resolveSibling(base.getFileName() + ".dat");
+        this.indexPath = base.resolveSibling(base.getFileName() + ".idx");
+        this.hot = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Patient> eldest) {
+                return size() > hotCapacity;
+            }
+        };
+        if (base.getParent() != null) Files.createDirectories(base.getParent());
+        data = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (!openIndex()) rebuildIndex();
+        // Until close() a crash leaves the index marked unclean, so the next open rebuilds it
+        index.putInt(H_CLEAN, 0);
+        index.force();
+    }
+
+    public synchronized int size() {
+        return live;
+    }
+
+    // Patients currently held on the heap
+    public synchronized int hotSize() {
+        return hot.size();
+    }
+
+    public synchronized Patient get(String mrn) throws IOException {
+        if (mrn == null) return null;
+        String key = normalize(mrn);
+        Patient patient = hot.get(key);
+        if (patient != null) return patient;
+        int slot = find(key, hash(key));
+        if (slot < 0) return null;
+        patient = decode(readFrame(slotRecord(slot)));
+        hot.put(key, patient);
+        return patient;
+    }
+
+    // Inserts or replaces by MRN; the patient joins the hot set
+    public synchronized void put(Patient patient) throws IOException {
+        String key = normalize(patient.getMrn());
+        long hash = hash(key);
+        int slot = find(key, hash);
+        long offset = append(OP_UPSERT, key, CSVFormat.DEFAULT.format(CSVUtil.toRow(patient)));
+        if (slot >= 0) {
+            deadBytes += frameLength(slotRecord(slot));
+        } else {
+            slot = -slot - 1;
+            if (index.getLong(slotAt(slot) + 8) == TOMBSTONE) tombstones--;
+            live++;
+        }
+        setSlot(slot, hash, offset + 1);
+        hot.put(key, patient);
+        growIfNeeded();
+    }
+
+    // Inserts only an MRN not stored yet; false leaves the stored patient untouched
+    public synchronized boolean putIfAbsent(Patient patient) throws IOException {
+        String key = normalize(patient.getMrn());
+        if (find(key, hash(key)) >= 0) return false;
+        put(patient);
+        return true;
+    }
+
+    public synchronized boolean remove(String mrn) throws IOException {
+        if (mrn == null) return false;
+        String key = normalize(mrn);
+        long hash = hash(key);
+        int slot = find(key, hash);
+        if (slot < 0) return false;
+        long offset = append(OP_DELETE, key, "");
+        deadBytes += frameLength(slotRecord(slot)) + (dataLength - offset);
+        setSlot(slot, hash, TOMBSTONE);
+        live--;
+        tombstones++;
+        hot.remove(key);
+        return true;
+    }
+
+    // Every stored patient, in index order; hot patients are passed as the cached instance
+    public synchronized void forEach(Consumer<? super Patient> action) throws IOException {
+        for (int slot = 0; slot < slots; slot++) {
+            long stored = index.getLong(slotAt(slot) + 8);
+            if (stored == EMPTY || stored == TOMBSTONE) continue;
+            ByteBuffer frame = readFrame(stored - 1);
+            Patient cached = hot.get(keyOf(frame));
+            action.accept(cached != null ? cached : decode(frame));
+        }
+    }
+
+    public synchronized void clear() throws IOException {
+        data.truncate(0);
+        hot.clear();
+        clearCounters();
+        index = createIndex(indexPath, MIN_SLOTS);
+        slots = MIN_SLOTS;
+        writeHeader();
+    }
+
+    // Appended records reach disk, and the index records how much of the data file it covers
+    public synchronized void sync() throws IOException {
+        data.force(false);
+        writeHeader();
+        index.force();
+    }
+
+    // Rewrites the data file without superseded and deleted records once they make up most of it
+    public synchronized boolean compactIfNeeded() throws IOException {
+        if (dataLength < COMPACTION_MIN_BYTES || deadBytes * 2 < dataLength) return false;
+        compact();
+        return true;
+    }
+
+    public synchronized void compact() throws IOException {
+        Path dataTmp = dataPath.resolveSibling(dataPath.getFileName() + ".tmp");
+        Path indexTmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        FileChannel target = FileChannel.open(dataTmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long written = 0;
+            MappedByteBuffer fresh = createIndex(indexTmp, slots);
+            for (int slot = 0; slot < slots; slot++) {
+                long stored = index.getLong(slotAt(slot) + 8);
+                if (stored == EMPTY || stored == TOMBSTONE) continue;
+                ByteBuffer frame = readFrame(stored - 1);
+                insert(fresh, slots, index.getLong(slotAt(slot)), written + 1);
+                written += writeFully(target, frame, written);
+            }
+            target.force(false);
+            Files.move(dataTmp, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(indexTmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            data.close();
+            data = target;
+            index = fresh;
+            dataLength = written;
+            deadBytes = 0;
+            tombstones = 0;
+            writeHeader();
+        } catch (IOException | RuntimeException e) {
+            target.close();
+            Files.deleteIfExists(dataTmp);
+            Files.deleteIfExists(indexTmp);
+            throw e;
+        }
+    }
+
+    public synchronized long dataFileSize() {
+        return dataLength;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!data.isOpen()) return;
+        sync();
+        index.putInt(H_CLEAN, 1);
+        index.force();
+        data.close();
+        hot.clear();
+    }
+
+    // ============ Index ============
+
+    // Reuses the index file only if it was closed cleanly against the current data file
+    private boolean openIndex() throws IOException {
+        if (!Files.isRegularFile(indexPath) || Files.size(indexPath) < HEADER_BYTES) return false;
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        int count = mapped.getInt(H_SLOTS);
+        if (mapped.getInt(H_MAGIC) != MAGIC || mapped.getInt(H_CLEAN) != 1 || Integer.bitCount(count) != 1
+                || mapped.capacity() != HEADER_BYTES + (long) count * SLOT_BYTES
+                || mapped.getLong(H_DATA_LENGTH) != data.size()) {
+            return false;
+        }
+        index = mapped;
+        slots = count;
+        live = mapped.getInt(H_LIVE);
+        tombstones = mapped.getInt(H_TOMBSTONES);
+        dataLength = mapped.getLong(H_DATA_LENGTH);
+        deadBytes = mapped.getLong(H_DEAD_BYTES);
+        return true;
+    }
+
+    // Replays the data file into a fresh index, cutting off a torn or corrupt tail
+    private void rebuildIndex() throws IOException {
+        clearCounters();
+        index = createIndex(indexPath, MIN_SLOTS);
+        slots = MIN_SLOTS;
+        long size = data.size();
+        long position = 0;
+        while (position + FRAME_HEADER_BYTES <= size) {
+            ByteBuffer frame = readIntactFrame(position, size);
+            if (frame == null) break;
+            // Read before find(), which reuses the frame's buffer
+            String key = keyOf(frame);
+            int length = FRAME_HEADER_BYTES + frame.getInt(0);
+            byte op = frame.get(FRAME_HEADER_BYTES);
+            long hash = hash(key);
+            int slot = find(key, hash);
+            if (slot >= 0) deadBytes += frameLength(slotRecord(slot));
+            if (op == OP_UPSERT) {
+                if (slot < 0) {
+                    slot = -slot - 1;
+                    if (index.getLong(slotAt(slot) + 8) == TOMBSTONE) tombstones--;
+                    live++;
+                }
+                setSlot(slot, hash, position + 1);
+            } else {
+                deadBytes += length;
+                if (slot >= 0) {
+                    setSlot(slot, hash, TOMBSTONE);
+                    live--;
+                    tombstones++;
+                }
+            }
+            position += length;
+            dataLength = position;
+            growIfNeeded();
+        }
+        data.truncate(position);
+        dataLength = position;
+        writeHeader();
+    }
+
+    private void clearCounters() {
+        live = 0;
+        tombstones = 0;
+        dataLength = 0;
+        deadBytes = 0;
+    }
+
+    private MappedByteBuffer createIndex(Path path, int slotCount) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) slotCount * SLOT_BYTES);
+        }
+        mapped.putInt(H_MAGIC, MAGIC);
+        mapped.putInt(H_SLOTS, slotCount);
+        return mapped;
+    }
+
+    // Doubles the table once live entries and tombstones pass the load factor; tombstones are dropped
+    private void growIfNeeded() throws IOException {
+        if (live + tombstones <= slots * MAX_LOAD) return;
+        int next = live * 2 > slots * MAX_LOAD ? slots * 2 : slots;
+        if (next > MAX_SLOTS) throw new IOException("Patient index is full: " + live + " patients");
+        Path tmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        MappedByteBuffer fresh = createIndex(tmp, next);
+        for (int slot = 0; slot < slots; slot++) {
+            long stored = index.getLong(slotAt(slot) + 8);
+            if (stored != EMPTY && stored != TOMBSTONE) insert(fresh, next, index.getLong(slotAt(slot)), stored);
+        }
+        Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = fresh;
+        slots = next;
+        tombstones = 0;
+        writeHeader();
+    }
+
+    // Keys are distinct here, so the first free slot is the one
+    private static void insert(MappedByteBuffer table, int slotCount, long hash, long stored) {
+        int mask = slotCount - 1;
+        int slot = (int) hash & mask;
+        while (table.getLong(slotAt(slot) + 8) != EMPTY) slot = (slot + 1) & mask;
+        table.putLong(slotAt(slot), hash);
+        table.putLong(slotAt(slot) + 8, stored);
+    }
+
+    // Slot holding the key, or -(slot to insert at) - 1; a matching hash is confirmed against the record's key
+    private int find(String key, long hash) throws IOException {
+        int mask = slots - 1;
+        int free = -1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            long stored = index.getLong(slotAt(slot) + 8);
+            if (stored == EMPTY) return -(free >= 0 ? free : slot) - 1;
+            if (stored == TOMBSTONE) {
+                if (free < 0) free = slot;
+            } else if (index.getLong(slotAt(slot)) == hash && key.equals(keyOf(readFrame(stored - 1)))) {
+                return slot;
+            }
+        }
+    }
+
+    private long slotRecord(int slot) {
+        return index.getLong(slotAt(slot) + 8) - 1;
+    }
+
+    private void setSlot(int slot, long hash, long stored) {
+        index.putLong(slotAt(slot), hash);
+        index.putLong(slotAt(slot) + 8, stored);
+    }
+
+    private static int slotAt(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private void writeHeader() {
+        index.putInt(H_LIVE, live);
+        index.putInt(H_TOMBSTONES, tombstones);
+        index.putLong(H_DATA_LENGTH, dataLength);
+        index.putLong(H_DEAD_BYTES, deadBytes);
+    }
+
+    // 64-bit FNV-1a, folded so the low bits used for the slot see the whole hash
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h ^ (h >>> 32);
+    }
+
+    private static String normalize(String mrn) {
+        return mrn.toUpperCase(Locale.ROOT);
+    }
+
+    // ============ Data File ============
+
+    private long append(byte op, String key, String row) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] rowBytes = row.getBytes(StandardCharsets.UTF_8);
+        int length = 3 + keyBytes.length + rowBytes.length;
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + length);
+        frame.putInt(length).putInt(0).put(op).putShort((short) keyBytes.length).put(keyBytes).put(rowBytes);
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), FRAME_HEADER_BYTES, length);
+        frame.putInt(4, (int) crc.getValue());
+        frame.flip();
+        long offset = dataLength;
+        dataLength += writeFully(data, frame, offset);
+        return offset;
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer frame, long position) throws IOException {
+        int length = frame.remaining();
+        long at = position;
+        while (frame.hasRemaining()) at += channel.write(frame, at);
+        return length;
+    }
+
+    // Whole frame at the offset, header included; the buffer is reused by the next read
+    private ByteBuffer readFrame(long offset) throws IOException {
+        ByteBuffer buffer = readBuffer;
+        buffer.clear();
+        readAt(buffer, offset, FRAME_HEADER_BYTES);
+        int total = FRAME_HEADER_BYTES + buffer.getInt(0);
+        if (total > buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(total, buffer.capacity() * 2));
+            buffer.flip();
+            larger.put(buffer);
+            readBuffer = buffer = larger;
+        }
+        if (buffer.position() < total) {
+            buffer.limit(total);
+            readAt(buffer, offset + buffer.position(), total - buffer.position());
+        }
+        buffer.position(0).limit(total);
+        return buffer;
+    }
+
+    // Reads until at least the needed bytes have arrived; more may, up to the buffer's limit
+    private void readAt(ByteBuffer buffer, long position, int needed) throws IOException {
+        int start = buffer.position();
+        long at = position;
+        while (buffer.position() - start < needed) {
+            int read = data.read(buffer, at);
+            if (read < 0) throw new IOException("Truncated record at " + position + " in " + dataPath);
+            at += read;
+        }
+    }
+
+    // Null when the frame at the position is torn or fails its checksum
+    private ByteBuffer readIntactFrame(long position, long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        if (data.read(header, position) < FRAME_HEADER_BYTES) return null;
+        int length = header.getInt(0);
+        if (length < 3 || position + FRAME_HEADER_BYTES + length > size) return null;
+        ByteBuffer frame = readFrame(position);
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), FRAME_HEADER_BYTES, length);
+        return (int) crc.getValue() == frame.getInt(4) ? frame : null;
+    }
+
+    private long frameLength(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readAt(header, offset, 4);
+        return FRAME_HEADER_BYTES + header.getInt(0);
+    }
+
+    private static String keyOf(ByteBuffer frame) {
+        int keyLength = frame.getShort(FRAME_HEADER_BYTES + 1);
+        return new String(frame.array(), FRAME_HEADER_BYTES + 3, keyLength, StandardCharsets.UTF_8);
+    }
+
+    private static Patient decode(ByteBuffer frame) throws IOException {
+        int start = FRAME_HEADER_BYTES + 3 + frame.getShort(FRAME_HEADER_BYTES + 1);
+        String row = new String(frame.array(), start, frame.limit() - start, StandardCharsets.UTF_8);
+        try (CSVParser parser = CSVParser.parse(row, CSVFormat.DEFAULT)) {
+            CSVRecord record = parser.iterator().next();
+            return CSVUtil.patientFromRow(record, 0);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Doctor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+// Bitmap calendar of one doctor: a weekly working mask plus a bitmap of occupied slots.
+// Slots are SlotTime numbers (30-minute indexes counted from 1970-01-01T00:00), so finding the next free slot
+// is a scan over 64-slot words (working & ~occupied) instead of one check per slot.
+// All access is synchronized on the calendar, which also serves as the doctor's booking lock.
+public class DoctorCalendar {
+    // Weekly mask, with its first 64 bits repeated after the end so any 64-bit window can be read
+    private final long[] weekMask = new long[(SlotTime.SLOTS_PER_WEEK + 64 + 63) / 64];
+    private List<DayOfWeek> maskDays;
+    private LocalTime maskFrom;
+    private LocalTime maskTo;
+
+    // Occupied bitmap, indexed relative to baseSlot; anything earlier is history and never searched
+    private final int baseSlot;
+    private long[] occupied = new long[4];
+
+    public DoctorCalendar() {
+        int now = SlotTime.of(LocalDateTime.now());
+        this.baseSlot = now - SlotTime.slotOfDay(now);
+    }
+
+    // Rebuilds the working mask only when the doctor's schedule fields were replaced
+    public synchronized void syncWorkingHours(Doctor doctor) {
+        if (doctor.getAvailableDays() == maskDays && doctor.getAvailableFrom() == maskFrom
+                && doctor.getAvailableTo() == maskTo) return;
+        maskDays = doctor.getAvailableDays();
+        maskFrom = doctor.getAvailableFrom();
+        maskTo = doctor.getAvailableTo();
+
+        Arrays.fill(weekMask, 0L);
+        if (maskDays == null || maskFrom == null || maskTo == null) return;
+        int fromSecond = maskFrom.toSecondOfDay();
+        int toSecond = SlotTime.endSecond(maskTo);
+        for (DayOfWeek day : maskDays) {
+            int dayStart = (day.getValue() - 1) * SlotTime.SLOTS_PER_DAY;
+            for (int i = 0; i < SlotTime.SLOTS_PER_DAY; i++) {
+                int start = i * SlotTime.SLOT_SECONDS;
+                if (start >= fromSecond && start + SlotTime.SLOT_SECONDS <= toSecond) setBit(weekMask, dayStart + i);
+            }
+        }
+        for (int i = 0; i < 64; i++) {
+            if (testBit(weekMask, i)) setBit(weekMask, SlotTime.SLOTS_PER_WEEK + i);
+        }
+    }
+
+    public synchronized boolean isWorking(int slot) {
+        return testBit(weekMask, SlotTime.weekPosition(slot));
+    }
+
+    public synchronized boolean isOccupied(int slot) {
+        int rel = slot - baseSlot;
+        return rel >= 0 && rel < occupied.length * 64 && testBit(occupied, rel);
+    }
+
+    public synchronized boolean isFree(int slot) {
+        return isWorking(slot) && !isOccupied(slot);
+    }
+
+    public synchronized void occupy(int slot) {
+        int rel = slot - baseSlot;
+        if (rel < 0) return;
+        if (rel >= occupied.length * 64) {
+            occupied = Arrays.copyOf(occupied, Math.max(occupied.length * 2, (rel >>> 6) + 1));
+        }
+        setBit(occupied, rel);
+    }
+
+    // Occupies the slot only if it is still free; false means another booking got there first
+    public synchronized boolean tryOccupy(int slot) {
+        if (!isFree(slot)) return false;
+        occupy(slot);
+        return true;
+    }
+
+    public synchronized void release(int slot) {
+        int rel = slot - baseSlot;
+        if (rel >= 0 && rel < occupied.length * 64) occupied[rel >>> 6] &= ~(1L << rel);
+    }
+
+    // First free slot in [fromSlot, fromSlot + slotCount), or -1 if there is none
+    public synchronized int nextFreeSlot(int fromSlot, int slotCount) {
+        int end = fromSlot + slotCount;
+        for (int s = fromSlot; s < end; s += 64) {
+            long free = window(weekMask, SlotTime.weekPosition(s)) & ~occupiedWindow(s - baseSlot);
+            int remaining = end - s;
+            if (remaining < 64) free &= (1L << remaining) - 1;
+            if (free != 0) return s + Long.numberOfTrailingZeros(free);
+        }
+        return -1;
+    }
+
+    private long occupiedWindow(int rel) {
+        if (rel <= -64 || rel >= occupied.length * 64) return 0L;
+        if (rel < 0) return window(occupied, 0) << -rel;
+        return window(occupied, rel);
+    }
+
+    // 64 bits starting at bitIndex; bits past the end of the array read as 0
+    private static long window(long[] bits, int bitIndex) {
+        int word = bitIndex >>> 6;
+        int shift = bitIndex & 63;
+        long lo = word < bits.length ? bits[word] >>> shift : 0L;
+        if (shift != 0 && word + 1 < bits.length) lo |= bits[word + 1] << (64 - shift);
+        return lo;
+    }
+
+    private static boolean testBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+}
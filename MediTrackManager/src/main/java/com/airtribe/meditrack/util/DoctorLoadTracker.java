@@ -0,0 +1,211 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.enums.DoctorType;
+import com.airtribe.meditrack.interfaces.DoctorSelectionStrategy;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+// Live per-doctor figures for load-aware doctor selection: confirmed bookings, and the first slot known to be
+// free. Each specialty keeps its doctors in two skip lists ordered by those figures, so the least-loaded or
+// earliest-free doctor is found in O(log n). Counters are read lock-free; a doctor's two entries are moved
+// under that doctor's own lock, so updates for different doctors never contend.
+public class DoctorLoadTracker {
+    public static final int NO_FREE_SLOT = Integer.MAX_VALUE;
+
+    public enum Policy {
+        ROUND_ROBIN,    // specialty's doctors in turn
+        LEAST_LOADED,   // fewest confirmed bookings
+        EARLIEST_SLOT;  // soonest free slot
+
+        public static Policy fromProperty(String property, Policy fallback) {
+            String value = System.getProperty(property);
+            if (value == null || value.isBlank()) return fallback;
+            try {
+                return Policy.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return fallback;
+            }
+        }
+    }
+
+    private static final class Load {
+        final int key;
+        final AtomicInteger bookings = new AtomicInteger();
+        // Never later than the doctor's real first free slot: lowered when a slot is freed, raised only
+        // when a selection re-reads the calendar
+        final AtomicInteger freeSlot = new AtomicInteger();
+        // Set while the doctor is in a specialty bucket
+        volatile Doctor doctor;
+        volatile DoctorType type;
+
+        Load(int key) {
+            this.key = key;
+        }
+    }
+
+    // By doctor key (IdDictionary.DOCTORS); bookings may be counted before the doctor is tracked
+    private final Map<Integer, Load> loads = new ConcurrentHashMap<>();
+    // Entries are (figure << 32 | doctor key), so ties go to the doctor seen first
+    private final EnumMap<DoctorType, ConcurrentSkipListSet<Long>> byBookings = new EnumMap<>(DoctorType.class);
+    private final EnumMap<DoctorType, ConcurrentSkipListSet<Long>> byFreeSlot = new EnumMap<>(DoctorType.class);
+    private final EnumMap<DoctorType, AtomicInteger> turns = new EnumMap<>(DoctorType.class);
+
+    public DoctorLoadTracker() {
+        for (DoctorType type : DoctorType.values()) {
+            byBookings.put(type, new ConcurrentSkipListSet<>());
+            byFreeSlot.put(type, new ConcurrentSkipListSet<>());
+            turns.put(type, new AtomicInteger());
+        }
+    }
+
+    // Mirrors DoctorService's specialty buckets: called as a doctor joins or leaves one
+    public void track(Doctor doctor) {
+        if (doctor.getId() == null || doctor.getDoctorType() == null) return;
+        Load load = load(IdDictionary.DOCTORS.keyOf(doctor.getId()));
+        synchronized (load) {
+            unlink(load);
+            load.doctor = doctor;
+            load.type = doctor.getDoctorType();
+            link(load);
+        }
+    }
+
+    public void untrack(Doctor doctor) {
+        Load load = loads.get(IdDictionary.DOCTORS.find(doctor.getId()));
+        if (load == null) return;
+        synchronized (load) {
+            if (load.doctor != doctor) return;
+            unlink(load);
+            load.doctor = null;
+            load.type = null;
+        }
+    }
+
+    public void untrackAll() {
+        for (Load load : loads.values()) {
+            synchronized (load) {
+                unlink(load);
+                load.doctor = null;
+                load.type = null;
+            }
+        }
+    }
+
+    public void booked(int doctorKey) {
+        Load load = load(doctorKey);
+        synchronized (load) {
+            unlink(load);
+            load.bookings.incrementAndGet();
+            link(load);
+        }
+    }
+
+    public void released(int doctorKey) {
+        Load load = load(doctorKey);
+        synchronized (load) {
+            unlink(load);
+            if (load.bookings.get() > 0) load.bookings.decrementAndGet();
+            link(load);
+        }
+    }
+
+    // A slot of the doctor's became free again (cancellation or a booking rolled back)
+    public void slotFreed(int doctorKey, int slot) {
+        Load load = load(doctorKey);
+        if (load.freeSlot.get() <= slot) return;
+        synchronized (load) {
+            unlink(load);
+            load.freeSlot.accumulateAndGet(slot, Math::min);
+            link(load);
+        }
+    }
+
+    // Bulk reload of appointments: every count restarts at zero
+    public void resetBookings() {
+        for (Load load : loads.values()) {
+            synchronized (load) {
+                unlink(load);
+                load.bookings.set(0);
+                load.freeSlot.set(0);
+                link(load);
+            }
+        }
+    }
+
+    public int bookings(int doctorKey) {
+        Load load = loads.get(doctorKey);
+        return load == null ? 0 : load.bookings.get();
+    }
+
+    // nextFreeSlot maps a doctor key to that doctor's first free slot from now, or NO_FREE_SLOT
+    public DoctorSelectionStrategy strategy(Policy policy, IntUnaryOperator nextFreeSlot) {
+        return switch (policy) {
+            case ROUND_ROBIN -> (type, candidates) -> candidates.isEmpty() ? null
+                    : candidates.get(Math.floorMod(turns.get(type).getAndIncrement(), candidates.size()));
+            case LEAST_LOADED -> (type, candidates) -> {
+                Doctor doctor = first(byBookings.get(type));
+                return doctor != null || candidates.isEmpty() ? doctor : candidates.get(0);
+            };
+            case EARLIEST_SLOT -> (type, candidates) -> {
+                Doctor doctor = earliest(type, nextFreeSlot);
+                return doctor != null || candidates.isEmpty() ? doctor : candidates.get(0);
+            };
+        };
+    }
+
+    private Doctor first(ConcurrentSkipListSet<Long> ranking) {
+        for (Long entry : ranking) {
+            Load load = loads.get((int) (long) entry);
+            Doctor doctor = load == null ? null : load.doctor;
+            if (doctor != null) return doctor;
+        }
+        return null;
+    }
+
+    // Stored free slots are lower bounds, so the head is the answer once its own bound is confirmed exact;
+    // otherwise it is raised to the real value and the head re-read
+    private Doctor earliest(DoctorType type, IntUnaryOperator nextFreeSlot) {
+        ConcurrentSkipListSet<Long> ranking = byFreeSlot.get(type);
+        for (int attempt = 0; attempt <= ranking.size(); attempt++) {
+            Long head = ranking.isEmpty() ? null : ranking.first();
+            if (head == null) return null;
+            Load load = loads.get((int) (long) head);
+            if (load == null || load.doctor == null) continue;
+            int stored = (int) (head >>> 32);
+            int actual = nextFreeSlot.applyAsInt(load.key);
+            if (actual <= stored) return load.doctor;
+            synchronized (load) {
+                unlink(load);
+                load.freeSlot.accumulateAndGet(actual, Math::max);
+                link(load);
+            }
+        }
+        return first(ranking);
+    }
+
+    private Load load(int doctorKey) {
+        return loads.computeIfAbsent(doctorKey, Load::new);
+    }
+
+    private void link(Load load) {
+        if (load.type == null) return;
+        byBookings.get(load.type).add(entry(load.bookings.get(), load.key));
+        byFreeSlot.get(load.type).add(entry(load.freeSlot.get(), load.key));
+    }
+
+    private void unlink(Load load) {
+        if (load.type == null) return;
+        byBookings.get(load.type).remove(entry(load.bookings.get(), load.key));
+        byFreeSlot.get(load.type).remove(entry(load.freeSlot.get(), load.key));
+    }
+
+    private static long entry(int figure, int key) {
+        return ((long) figure << 32) | key;
+    }
+}
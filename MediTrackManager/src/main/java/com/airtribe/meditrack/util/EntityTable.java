@@ -0,0 +1,37 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.entity.Patient;
+import org.apache.commons.csv.CSVRecord;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// What the storage backends need to know about each persisted table: its file name, columns, primary
+// key, and the row mapping shared by every format and the change log.
+record EntityTable<T>(Class<T> type, String fileName, String[] headers, Function<T, String> key,
+                      Function<T, Object[]> toRow, Function<String[], T> fromFields,
+                      BiFunction<CSVRecord, Integer, T> fromLogRow) {
+
+    static final EntityTable<Doctor> DOCTORS = new EntityTable<>(Doctor.class, "doctor_data",
+            CSVUtil.DOCTOR_HEADERS, Doctor::getId, CSVUtil::toRow, CSVUtil::doctorFromFields, CSVUtil::doctorFromRow);
+    static final EntityTable<Patient> PATIENTS = new EntityTable<>(Patient.class, "patient_data",
+            CSVUtil.PATIENT_HEADERS, Patient::getMrn, CSVUtil::toRow, CSVUtil::patientFromFields, CSVUtil::patientFromRow);
+    static final EntityTable<Appointment> APPOINTMENTS = new EntityTable<>(Appointment.class, "appointment_data",
+            CSVUtil.APPOINTMENT_HEADERS, Appointment::getAppointmentId, CSVUtil::toRow,
+            CSVUtil::appointmentFromFields, CSVUtil::appointmentFromRow);
+
+    @SuppressWarnings("unchecked")
+    static <T> EntityTable<T> of(Class<T> type) {
+        if (Doctor.class.isAssignableFrom(type)) return (EntityTable<T>) DOCTORS;
+        if (Patient.class.isAssignableFrom(type)) return (EntityTable<T>) PATIENTS;
+        if (Appointment.class.isAssignableFrom(type)) return (EntityTable<T>) APPOINTMENTS;
+        throw new IllegalArgumentException("Unsupported entity type: " + type.getSimpleName());
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> EntityTable<T> ofEntity(T entity) {
+        return (EntityTable<T>) of(entity.getClass());
+    }
+}
@@ -0,0 +1,88 @@
+package com.airtribe.meditrack.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Runs save work on one background thread so the caller never waits on disk. A request made while
+// a flush is already pending joins that flush, so a burst of edits costs a single write. close()
+// (also run by the shutdown hook) performs a last flush of anything still pending.
+public class FlushScheduler implements Closeable {
+
+    @FunctionalInterface
+    public interface FlushTask {
+        void flush() throws IOException;
+    }
+
+    private final FlushTask task;
+    private final long delayMillis;
+    private final long retryDelayMillis;
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public FlushScheduler(String name, FlushTask task, long delayMillis, long retryDelayMillis) {
+        this.task = task;
+        this.delayMillis = delayMillis;
+        this.retryDelayMillis = retryDelayMillis;
+        this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+        // On close, a flush still waiting for its delay is dropped; close() runs its own final flush
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    public void requestFlush() {
+        schedule(delayMillis);
+    }
+
+    private void schedule(long delay) {
+        if (closed.get() || !pending.compareAndSet(false, true)) return;
+        try {
+            executor.schedule(this::runPending, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed concurrently; the final flush in close() covers this request
+            pending.set(false);
+        }
+    }
+
+    // Cleared before the flush starts, so edits made during it schedule the next one
+    private void runPending() {
+        pending.set(false);
+        try {
+            task.flush();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: background save failed, retrying: " + e.getMessage());
+            schedule(retryDelayMillis);
+        }
+    }
+
+    public void installShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                System.err.println("Warning: final save failed: " + e.getMessage());
+            }
+        }, "flush-on-exit"));
+    }
+
+    // Waits for a flush in progress (never interrupting it, since an interrupt closes file channels),
+    // then runs a final one on the calling thread; later calls do nothing
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) return;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        task.flush();
+    }
+}
@@ -0,0 +1,56 @@
+package com.airtribe.meditrack.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bidirectional string id <-> dense int key dictionary. Keys are handed out from 1 in first-seen order and
+// never reused, so they can index arrays and be compared with ==; 0 stands for "no id". External ids stay
+// strings everywhere they are stored or shown; keys only live inside the process.
+public class IdDictionary {
+    public static final int NO_KEY = 0;
+    public static final IdDictionary DOCTORS = new IdDictionary();
+    public static final IdDictionary PATIENTS = new IdDictionary();
+
+    private final ConcurrentHashMap<String, Integer> keys = new ConcurrentHashMap<>();
+    private volatile AtomicReferenceArray<String> ids = new AtomicReferenceArray<>(64);
+    private int nextKey = 1;
+
+    // Key for the id, assigned on first sight
+    public int keyOf(String id) {
+        if (id == null) return NO_KEY;
+        Integer key = keys.get(id);
+        return key != null ? key : assign(id);
+    }
+
+    // Key for the id, or NO_KEY if it has never been seen
+    public int find(String id) {
+        if (id == null) return NO_KEY;
+        Integer key = keys.get(id);
+        return key != null ? key : NO_KEY;
+    }
+
+    public String idOf(int key) {
+        AtomicReferenceArray<String> table = ids;
+        return key > 0 && key < table.length() ? table.get(key) : null;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    private synchronized int assign(String id) {
+        Integer existing = keys.get(id);
+        if (existing != null) return existing;
+        int key = nextKey++;
+        AtomicReferenceArray<String> table = ids;
+        if (key >= table.length()) {
+            AtomicReferenceArray<String> grown = new AtomicReferenceArray<>(table.length() * 2);
+            for (int i = 0; i < table.length(); i++) grown.set(i, table.get(i));
+            ids = table = grown;
+        }
+        // The id is readable by key before the key is published through the map
+        table.set(key, id);
+        keys.put(id, key);
+        return key;
+    }
+}
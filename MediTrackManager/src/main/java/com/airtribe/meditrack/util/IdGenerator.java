@@ -1,15 +1,85 @@
 package com.airtribe.meditrack.util;
 
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Time-ordered identifiers: each value is (time since EPOCH << sequence bits) | sequence, so IDs sort by
+// creation time. Values come from a shared clock that only moves forward; a burst larger than one tick's
+// sequence space borrows from the next tick, so values stay unique even if the wall clock steps back.
 public class IdGenerator {
+    // 2024-01-01T00:00:00Z
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final char[] BASE36 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    // IDs: milliseconds in the high 42 bits (139 years), 22 bits of sequence; 13 Crockford base-32 characters
+    private static final Sequence IDS = new Sequence(1, 22, 64);
+    // MRNs: seconds in the high 30 bits (34 years), 16 bits of sequence; "MRN" + 9 base-36 digits,
+    // which stays within Validator.isValidMRN
+    private static final Sequence MRNS = new Sequence(1000, 16, 16);
+    private static final int ID_LENGTH = 13;
+    private static final int MRN_DIGITS = 9;
+
     public static String generateId() {
-        return UUID.randomUUID().toString();
+        long value = IDS.next();
+        char[] chars = new char[ID_LENGTH];
+        for (int i = ID_LENGTH - 1; i >= 0; i--) {
+            chars[i] = BASE32[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
     }
 
     public static String generateMRN() {
-        return "MRN"+UUID.randomUUID().toString().substring(0, 3).toUpperCase();
+        long value = MRNS.next();
+        char[] chars = new char[3 + MRN_DIGITS];
+        chars[0] = 'M';
+        chars[1] = 'R';
+        chars[2] = 'N';
+        for (int i = chars.length - 1; i >= 3; i--) {
+            chars[i] = BASE36[(int) (value % 36)];
+            value /= 36;
+        }
+        return new String(chars);
+    }
+
+    // Numeric form of generateId, for callers that keep IDs as longs
+    public static long nextId() {
+        return IDS.next();
     }
 
+    // Each thread takes a block of values with one CAS on the shared clock and hands them out locally.
+    // A block is only used during its own tick, so values from different threads stay ordered by time.
+    private static final class Sequence {
+        private final long unitMillis;
+        private final int sequenceBits;
+        private final int blockSize;
+        // First value not handed to any thread yet
+        private final AtomicLong clock = new AtomicLong();
+        // [next, end) of this thread's block
+        private final ThreadLocal<long[]> block = ThreadLocal.withInitial(() -> new long[2]);
+
+        Sequence(long unitMillis, int sequenceBits, int blockSize) {
+            this.unitMillis = unitMillis;
+            this.sequenceBits = sequenceBits;
+            this.blockSize = blockSize;
+        }
 
+        long next() {
+            long tick = (System.currentTimeMillis() - EPOCH_MILLIS) / unitMillis;
+            long[] range = block.get();
+            if (range[0] < range[1] && (range[0] >>> sequenceBits) >= tick) {
+                return range[0]++;
+            }
+            long floor = tick << sequenceBits;
+            while (true) {
+                long current = clock.get();
+                long start = Math.max(current, floor);
+                if (clock.compareAndSet(current, start + blockSize)) {
+                    range[0] = start + 1;
+                    range[1] = start + blockSize;
+                    return start;
+                }
+            }
+        }
+    }
 }
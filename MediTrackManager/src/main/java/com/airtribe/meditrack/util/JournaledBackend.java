@@ -0,0 +1,139 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.Constants;
+import com.airtribe.meditrack.interfaces.EntitySink;
+import com.airtribe.meditrack.interfaces.StorageBackend;
+import com.airtribe.meditrack.util.WriteAheadLog.FsyncPolicy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// Base for the file backends: each table is a snapshot file in the backend's own format plus a
+// write-ahead log (<table>.wal) holding the changes saved since. Subclasses only read and write snapshots.
+abstract class JournaledBackend implements StorageBackend {
+    protected final Path dir;
+    private final Map<Class<?>, WriteAheadLog> logs = new HashMap<>();
+    // One snapshot per table at a time; appends to the table's log are not held up by it
+    private final Map<Class<?>, Object> snapshotLocks = new ConcurrentHashMap<>();
+
+    protected JournaledBackend(Path dir) {
+        this.dir = dir;
+    }
+
+    // Snapshot file extension, without the dot
+    protected abstract String extension();
+
+    protected abstract <T> void readSnapshot(EntityTable<T> table, Path file, EntitySink<T> sink) throws IOException;
+
+    protected abstract <T> void writeSnapshot(EntityTable<T> table, Path file, Iterable<? extends T> rows) throws IOException;
+
+    protected abstract <T> Stream<T> streamSnapshot(EntityTable<T> table, Path file) throws IOException;
+
+    protected Path snapshotFile(EntityTable<?> table) {
+        return dir.resolve(table.fileName() + "." + extension());
+    }
+
+    protected Path csvFile(EntityTable<?> table) {
+        return dir.resolve(table.fileName() + ".csv");
+    }
+
+    // Until a backend has written its first snapshot, the table is read from the CSV file it replaces
+    @Override
+    public <T> void load(Class<T> type, EntitySink<T> sink) throws IOException {
+        EntityTable<T> table = EntityTable.of(type);
+        Path own = snapshotFile(table);
+        if (Files.isRegularFile(own)) readSnapshot(table, own, sink);
+        else drain(CsvBackend.streamCsv(table, csvFile(table)), sink);
+        loadDelta(type, sink);
+    }
+
+    @Override
+    public <T> void loadDelta(Class<T> type, EntitySink<T> sink) throws IOException {
+        EntityTable<T> table = EntityTable.of(type);
+        log(table).replay(entry -> {
+            if (WriteAheadLog.OP_UPSERT.equals(entry.get(0))) {
+                sink.upsert(table.fromLogRow().apply(entry, 1));
+            } else if (WriteAheadLog.OP_DELETE.equals(entry.get(0))) {
+                sink.delete(entry.get(1));
+            }
+        });
+    }
+
+    @Override
+    public <T> Stream<T> stream(Class<T> type) throws IOException {
+        EntityTable<T> table = EntityTable.of(type);
+        Path own = snapshotFile(table);
+        return Files.isRegularFile(own) ? streamSnapshot(table, own) : CsvBackend.streamCsv(table, csvFile(table));
+    }
+
+    @Override
+    public <T> void saveDelta(Class<T> type, List<ChangeTracker.Change<T>> changes) throws IOException {
+        if (changes.isEmpty()) return;
+        EntityTable<T> table = EntityTable.of(type);
+        WriteAheadLog.Batch batch = log(table).batch();
+        for (ChangeTracker.Change<T> change : changes) {
+            if (change.op() == ChangeTracker.Op.UPSERT) batch.upsert(table.toRow().apply(change.entity()));
+            else batch.delete(change.key());
+        }
+        batch.commit();
+    }
+
+    // Changes logged while the snapshot is being written stay in the log. Overlapping snapshots of a table
+    // are serialized, since a mark taken by one is stale once another has compacted the log under it.
+    @Override
+    public <T> void snapshot(Class<T> type, Iterable<? extends T> rows) throws IOException {
+        EntityTable<T> table = EntityTable.of(type);
+        WriteAheadLog log = log(table);
+        synchronized (snapshotLocks.computeIfAbsent(table.type(), t -> new Object())) {
+            long mark = log.mark();
+            writeSnapshot(table, snapshotFile(table), rows);
+            log.discardUpTo(mark);
+        }
+    }
+
+    @Override
+    public long deltaSize(Class<?> type) throws IOException {
+        return log(EntityTable.of(type)).size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (WriteAheadLog log : logs.values()) log.close();
+        logs.clear();
+    }
+
+    // Rows parsed on several threads, as ParallelCSVLoader streams allow
+    protected static <T> void drain(Stream<T> rows, EntitySink<T> sink) throws IOException {
+        try (rows) {
+            rows.parallel().forEach(sink::upsert);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private synchronized WriteAheadLog log(EntityTable<?> table) throws IOException {
+        WriteAheadLog log = logs.get(table.type());
+        if (log == null) {
+            Files.createDirectories(dir);
+            log = WriteAheadLog.open(dir.resolve(table.fileName() + ".wal"), policyFor(table), Constants.WAL_FSYNC_INTERVAL_MS);
+            logs.put(table.type(), log);
+        }
+        return log;
+    }
+
+    // Concurrent bookings share one fsync per batch; INTERVAL would let a booking return before it is on disk
+    private static FsyncPolicy policyFor(EntityTable<?> table) {
+        if (table == EntityTable.APPOINTMENTS) {
+            FsyncPolicy policy = FsyncPolicy.fromProperty(Constants.APPOINTMENT_WAL_FSYNC_PROPERTY, FsyncPolicy.GROUP_COMMIT);
+            return policy == FsyncPolicy.INTERVAL ? FsyncPolicy.GROUP_COMMIT : policy;
+        }
+        return FsyncPolicy.fromProperty(Constants.WAL_FSYNC_PROPERTY, FsyncPolicy.GROUP_COMMIT);
+    }
+}
@@ -0,0 +1,149 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.interfaces.EntitySink;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// One JSON object per line, written and read with the Jackson streaming API (no data binding).
+// Fields are the CSV columns, so both formats share the row mapping; list columns become JSON arrays.
+public class JsonLinesBackend extends JournaledBackend {
+    public static final String NAME = "jsonl";
+    private static final Set<String> LIST_COLUMNS = Set.of("knownAllergies", "chronicConditions", "currentMedications", "availableDays");
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    public JsonLinesBackend(Path dir) {
+        super(dir);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    protected String extension() {
+        return "jsonl";
+    }
+
+    @Override
+    protected <T> void readSnapshot(EntityTable<T> table, Path file, EntitySink<T> sink) throws IOException {
+        drain(streamSnapshot(table, file), sink);
+    }
+
+    @Override
+    protected <T> void writeSnapshot(EntityTable<T> table, Path file, Iterable<? extends T> rows) throws IOException {
+        String[] headers = table.headers();
+        SafeFileWriter.write(file, channel -> {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            JsonGenerator json = FACTORY.createGenerator(writer);
+            json.setRootValueSeparator(null);
+            for (T row : rows) {
+                Object[] values = table.toRow().apply(row);
+                json.writeStartObject();
+                for (int i = 0; i < headers.length; i++) {
+                    writeField(json, headers[i], values[i]);
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+            json.flush();
+        });
+    }
+
+    private static void writeField(JsonGenerator json, String name, Object value) throws IOException {
+        if (value == null) {
+            json.writeNullField(name);
+        } else if (LIST_COLUMNS.contains(name)) {
+            json.writeArrayFieldStart(name);
+            String joined = value.toString();
+            if (!joined.isEmpty()) {
+                for (String item : joined.split(";")) json.writeString(item);
+            }
+            json.writeEndArray();
+        } else if (value instanceof Integer number) {
+            json.writeNumberField(name, number);
+        } else {
+            json.writeStringField(name, value.toString());
+        }
+    }
+
+    // Lazy: one line is parsed per row pulled from the stream
+    @Override
+    protected <T> Stream<T> streamSnapshot(EntityTable<T> table, Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return Stream.empty();
+        JsonParser parser = FACTORY.createParser(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = new HashMap<>();
+        String[] headers = table.headers();
+        for (int i = 0; i < headers.length; i++) columns.put(headers[i], i);
+
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    String[] fields = nextObject(parser, columns, headers.length);
+                    if (fields == null) return false;
+                    action.accept(table.fromFields().apply(fields));
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Fields of the next object in column order, or null at the end; absent fields read as empty
+    private static String[] nextObject(JsonParser parser, Map<String, Integer> columns, int width) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) return null;
+        if (token != JsonToken.START_OBJECT) throw new IOException("Expected a JSON object at " + parser.currentLocation());
+        String[] fields = new String[width];
+        Arrays.fill(fields, "");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Integer column = columns.get(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (column == null) {
+                parser.skipChildren();
+            } else if (value == JsonToken.START_ARRAY) {
+                StringBuilder joined = new StringBuilder();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (joined.length() > 0) joined.append(';');
+                    joined.append(parser.getText());
+                }
+                fields[column] = joined.toString();
+            } else if (value != JsonToken.VALUE_NULL) {
+                fields[column] = parser.getText();
+            }
+        }
+        return fields;
+    }
+}
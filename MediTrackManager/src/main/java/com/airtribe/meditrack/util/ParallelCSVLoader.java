@@ -0,0 +1,440 @@
+package com.airtribe.meditrack.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Parallel reader for the entity CSV files. The file is memory-mapped in fixed windows, each window
+// is moved forward to the next record boundary (a newline outside quotes), and the resulting chunks
+// are parsed and mapped on the common fork-join pool. Rows keep their file order.
+public class ParallelCSVLoader {
+    public static final int DEFAULT_CHUNK_BYTES = 4 * 1024 * 1024;
+    private static final byte QUOTE = '"';
+    private static final byte COMMA = ',';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private ParallelCSVLoader() {
+    }
+
+    public static <T> List<T> load(Path path, String[] headers, Function<String[], T> mapper) throws IOException {
+        return load(path, headers, mapper, DEFAULT_CHUNK_BYTES);
+    }
+
+    // The mapper always sees columns in the order of the given headers, whatever order the file uses
+    public static <T> List<T> load(Path path, String[] headers, Function<String[], T> mapper, int chunkBytes)
+            throws IOException {
+        try (Stream<T> rows = stream(path, headers, mapper, chunkBytes)) {
+            return rows.parallel().collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static <T> Stream<T> stream(Path path, String[] headers, Function<String[], T> mapper) throws IOException {
+        return stream(path, headers, mapper, DEFAULT_CHUNK_BYTES);
+    }
+
+    // Lazy rows: one chunk is read and parsed at a time, so memory stays at a chunk per consuming
+    // thread however large the file is. A parallel stream splits on chunk boundaries. The stream
+    // holds the file open and must be closed; read errors surface as UncheckedIOException.
+    public static <T> Stream<T> stream(Path path, String[] headers, Function<String[], T> mapper, int chunkBytes)
+            throws IOException {
+        if (!Files.exists(path)) return Stream.empty();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                channel.close();
+                return Stream.empty();
+            }
+            long[] starts = chunkStarts(channel, size, chunkBytes);
+
+            // The header is the first record of chunk 0; it decides the column order for every row
+            byte[] first = read(channel, starts[0], starts[1]);
+            RecordReader headerReader = new RecordReader(first, 0, first.length);
+            String[] fileHeaders = headerReader.next(null);
+            if (fileHeaders == null) {
+                channel.close();
+                return Stream.empty();
+            }
+            int[] columns = columnOrder(headers, fileHeaders);
+            Chunks<T> chunks = new Chunks<>(channel, starts, headerReader.position(), columns, headers.length, mapper, path);
+            return StreamSupport.stream(new ChunkSpliterator<>(chunks, 0, starts.length - 1), false)
+                    .onClose(() -> closeQuietly(channel));
+        } catch (UncheckedIOException e) {
+            channel.close();
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(String[] keys, long offset, int length);
+    }
+
+    // Key-column scan for lazy loading: reports the requested columns (in keyHeaders order) and the byte
+    // range of every row; other fields are stepped over without being decoded. Chunks are scanned in
+    // parallel, so the visitor must be thread-safe. Returns the still-open file to read rows back from,
+    // or null if it is missing or empty.
+    public static RowFile scanKeys(Path path, String[] headers, String[] keyHeaders, RowVisitor visitor) throws IOException {
+        if (!Files.exists(path)) return null;
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long[] starts = size == 0 ? null : chunkStarts(channel, size, DEFAULT_CHUNK_BYTES);
+            byte[] first = starts == null ? new byte[0] : read(channel, starts[0], starts[1]);
+            RecordReader headerReader = new RecordReader(first, 0, first.length);
+            String[] fileHeaders = headerReader.next(null);
+            if (fileHeaders == null) {
+                channel.close();
+                return null;
+            }
+            List<String> fileColumns = Arrays.asList(fileHeaders);
+            int[] keyColumns = new int[keyHeaders.length];
+            boolean[] wanted = new boolean[fileHeaders.length];
+            for (int k = 0; k < keyHeaders.length; k++) {
+                keyColumns[k] = fileColumns.indexOf(keyHeaders[k]);
+                if (keyColumns[k] >= 0) wanted[keyColumns[k]] = true;
+            }
+            int headerEnd = headerReader.position();
+            IntStream.range(0, starts.length - 1).parallel().forEach(i -> {
+                byte[] chunk = i == 0 ? first : read(channel, starts[i], starts[i + 1]);
+                RecordReader reader = new RecordReader(chunk, i == 0 ? headerEnd : 0, chunk.length);
+                String[] record;
+                while ((record = reader.next(wanted)) != null) {
+                    String[] keys = new String[keyColumns.length];
+                    for (int k = 0; k < keys.length; k++) {
+                        int column = keyColumns[k];
+                        keys[k] = column >= 0 && column < record.length ? record[column] : "";
+                    }
+                    visitor.visit(keys, starts[i] + reader.recordStart(), reader.position() - reader.recordStart());
+                }
+            });
+            return new RowFile(channel, path, columnOrder(headers, fileHeaders), headers.length);
+        } catch (UncheckedIOException e) {
+            channel.close();
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Rows located by scanKeys, read back one at a time. The file stays open, so the scanned rows remain
+    // readable after a newer snapshot replaces the file on disk.
+    public static final class RowFile implements Closeable {
+        private final FileChannel channel;
+        private final Path path;
+        private final int[] columns;
+        private final int width;
+
+        private RowFile(FileChannel channel, Path path, int[] columns, int width) {
+            this.channel = channel;
+            this.path = path;
+            this.columns = columns;
+            this.width = width;
+        }
+
+        // The mapper sees columns in header order, as with load()
+        public <T> T read(long offset, int length, Function<String[], T> mapper) throws IOException {
+            ByteBuffer row = ByteBuffer.allocate(length);
+            while (row.hasRemaining()) {
+                if (channel.read(row, offset + row.position()) < 0) throw new EOFException("Row at " + offset + " is past the end of " + path);
+            }
+            String[] record = new RecordReader(row.array(), 0, length).next(null);
+            if (record == null) throw new IOException("No row at " + offset + " in " + path);
+            return mapper.apply(reorder(record, columns, width, path));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Everything a spliterator needs to turn chunk i into rows
+    private record Chunks<T>(FileChannel channel, long[] starts, int headerEnd, int[] columns, int width,
+                             Function<String[], T> mapper, Path path) {
+        RecordReader reader(int i) {
+            byte[] chunk = read(channel, starts[i], starts[i + 1]);
+            return new RecordReader(chunk, i == 0 ? headerEnd : 0, chunk.length);
+        }
+
+        T map(String[] record) {
+            return mapper.apply(reorder(record, columns, width, path));
+        }
+    }
+
+    // Walks chunks [next, end) in order; trySplit hands the lower half away (ordered streams split off
+    // a prefix), together with the chunk currently being read
+    private static final class ChunkSpliterator<T> implements Spliterator<T> {
+        private final Chunks<T> chunks;
+        private int next;
+        private int end;
+        private RecordReader current;
+
+        ChunkSpliterator(Chunks<T> chunks, int from, int end) {
+            this.chunks = chunks;
+            this.next = from;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (true) {
+                if (current == null) {
+                    if (next >= end) return false;
+                    current = chunks.reader(next++);
+                }
+                String[] record = current.next(null);
+                if (record != null) {
+                    action.accept(chunks.map(record));
+                    return true;
+                }
+                current = null;
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (end - next < 2) return null;
+            int mid = (next + end) >>> 1;
+            ChunkSpliterator<T> lower = new ChunkSpliterator<>(chunks, next, mid);
+            lower.current = current;
+            current = null;
+            next = mid;
+            return lower;
+        }
+
+        // Counted in chunks, which is what parallel splitting needs to balance the work
+        @Override
+        public long estimateSize() {
+            return end - next + (current != null ? 1 : 0);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    // Chunk boundaries: window k starts at k * chunkBytes and is pushed to just past the first newline
+    // with an even number of quotes before it. Quote parity per window is counted in parallel first.
+    private static long[] chunkStarts(FileChannel channel, long size, int chunkBytes) {
+        int windows = (int) ((size + chunkBytes - 1) / chunkBytes);
+        int[] quotes = IntStream.range(0, windows).parallel()
+                .map(k -> countQuotes(map(channel, (long) k * chunkBytes, Math.min(size, (long) (k + 1) * chunkBytes))))
+                .toArray();
+        boolean[] insideQuotes = new boolean[windows];
+        for (int k = 1; k < windows; k++) {
+            insideQuotes[k] = insideQuotes[k - 1] ^ (quotes[k - 1] & 1) == 1;
+        }
+
+        long[] starts = new long[windows + 1];
+        starts[windows] = size;
+        IntStream.range(1, windows).parallel().forEach(k -> {
+            long windowStart = (long) k * chunkBytes;
+            MappedByteBuffer window = map(channel, windowStart, Math.min(size, windowStart + chunkBytes));
+            starts[k] = firstRecordStart(window, windowStart, insideQuotes[k]);
+        });
+        // A window without a record boundary (one huge record) contributes an empty chunk
+        for (int k = windows - 1; k >= 1; k--) {
+            if (starts[k] < 0) starts[k] = starts[k + 1];
+        }
+        return starts;
+    }
+
+    // Offset just past the first newline outside quotes, or -1 if the window has none. Any true boundary
+    // will do: a record skipped here is simply parsed as the tail of the previous chunk.
+    private static long firstRecordStart(MappedByteBuffer window, long windowStart, boolean inside) {
+        for (int i = 0, n = window.limit(); i < n; i++) {
+            byte b = window.get(i);
+            if (b == QUOTE) inside = !inside;
+            else if (b == LF && !inside) return windowStart + i + 1;
+        }
+        return -1;
+    }
+
+    private static int countQuotes(MappedByteBuffer window) {
+        int count = 0;
+        for (int i = 0, n = window.limit(); i < n; i++) {
+            if (window.get(i) == QUOTE) count++;
+        }
+        return count;
+    }
+
+    private static int[] columnOrder(String[] expected, String[] actual) {
+        int[] order = new int[expected.length];
+        boolean identity = actual.length == expected.length;
+        for (int i = 0; i < expected.length; i++) {
+            order[i] = Arrays.asList(actual).indexOf(expected[i]);
+            identity &= order[i] == i;
+        }
+        return identity ? null : order;
+    }
+
+    private static String[] reorder(String[] record, int[] columns, int width, Path path) {
+        if (columns == null) {
+            if (record.length < width) throw malformed(path, record);
+            return record;
+        }
+        String[] ordered = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            int column = columns[i];
+            ordered[i] = column >= 0 && column < record.length ? record[column] : "";
+        }
+        return ordered;
+    }
+
+    private static IllegalArgumentException malformed(Path path, String[] record) {
+        return new IllegalArgumentException("Malformed record in " + path.getFileName() + ": " + Arrays.toString(record));
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long to) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] read(FileChannel channel, long from, long to) {
+        byte[] bytes = new byte[(int) (to - from)];
+        if (bytes.length > 0) map(channel, from, to).get(bytes);
+        return bytes;
+    }
+
+    // RFC 4180 records over a byte range: quoted fields may hold commas, doubled quotes and newlines
+    private static final class RecordReader {
+        private final byte[] bytes;
+        private final int end;
+        private int pos;
+        private final List<String> fields = new ArrayList<>();
+        private int recordStart;
+        // Reused to collapse doubled quotes; grows to the longest escaped field seen
+        private byte[] scratch = new byte[64];
+
+        RecordReader(byte[] bytes, int from, int end) {
+            this.bytes = bytes;
+            this.pos = from;
+            this.end = end;
+        }
+
+        int position() {
+            return pos;
+        }
+
+        // Where the record last returned by next() began
+        int recordStart() {
+            return recordStart;
+        }
+
+        // Next non-blank record, or null at the end of the range. With a wanted mask, only the marked
+        // columns are decoded and the rest come back as null.
+        String[] next(boolean[] wanted) {
+            while (pos < end && (bytes[pos] == LF || bytes[pos] == CR)) pos++;
+            if (pos >= end) return null;
+            recordStart = pos;
+            fields.clear();
+            while (true) {
+                int column = fields.size();
+                if (wanted != null && (column >= wanted.length || !wanted[column])) {
+                    skip();
+                    fields.add(null);
+                } else {
+                    fields.add(pos < end && bytes[pos] == QUOTE ? quoted() : unquoted());
+                }
+                if (pos < end && bytes[pos] == COMMA) {
+                    pos++;
+                    continue;
+                }
+                if (pos < end && bytes[pos] == CR) pos++;
+                if (pos < end && bytes[pos] == LF) pos++;
+                return fields.toArray(new String[0]);
+            }
+        }
+
+        private void skip() {
+            if (pos < end && bytes[pos] == QUOTE) {
+                pos++;
+                while (pos < end) {
+                    if (bytes[pos] == QUOTE) {
+                        if (pos + 1 < end && bytes[pos + 1] == QUOTE) {
+                            pos += 2;
+                            continue;
+                        }
+                        pos++;
+                        return;
+                    }
+                    pos++;
+                }
+                return;
+            }
+            while (pos < end && bytes[pos] != COMMA && bytes[pos] != LF && bytes[pos] != CR) pos++;
+        }
+
+        private String unquoted() {
+            int start = pos;
+            while (pos < end && bytes[pos] != COMMA && bytes[pos] != LF && bytes[pos] != CR) pos++;
+            return new String(bytes, start, pos - start, StandardCharsets.UTF_8);
+        }
+
+        private String quoted() {
+            pos++; // opening quote
+            int start = pos;
+            int escapes = 0;
+            while (pos < end) {
+                if (bytes[pos] == QUOTE) {
+                    if (pos + 1 < end && bytes[pos + 1] == QUOTE) {
+                        escapes++;
+                        pos += 2;
+                        continue;
+                    }
+                    break;
+                }
+                pos++;
+            }
+            int close = pos;
+            if (pos < end) pos++; // closing quote
+            if (escapes == 0) return new String(bytes, start, close - start, StandardCharsets.UTF_8);
+            // Every quote inside [start, close) is the first of a doubled pair
+            int length = close - start - escapes;
+            if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+            for (int i = start, j = 0; i < close; i++) {
+                scratch[j++] = bytes[i];
+                if (bytes[i] == QUOTE) i++;
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
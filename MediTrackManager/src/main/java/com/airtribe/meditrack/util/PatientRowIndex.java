@@ -0,0 +1,98 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Patient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Lazy startup view of the patient CSV snapshot: only each row's MRN, id and name and its byte range are
+// read up front (see ParallelCSVLoader.scanKeys). The full record is parsed when first asked for, and the
+// row then leaves the index, as it does when the patient is replaced or deleted.
+public class PatientRowIndex implements Closeable {
+    private static final String[] KEY_HEADERS = {"mrn", "id", "name"};
+
+    private record Row(String id, String name, long offset, int length) {
+    }
+
+    private final ParallelCSVLoader.RowFile file;
+    // Rows not hydrated yet, by upper-cased MRN
+    private final Map<String, Row> rows;
+
+    private PatientRowIndex(ParallelCSVLoader.RowFile file, Map<String, Row> rows) {
+        this.file = file;
+        this.rows = rows;
+    }
+
+    // A missing or empty file gives an empty index
+    public static PatientRowIndex scan(Path csv) throws IOException {
+        Map<String, Row> rows = new ConcurrentHashMap<>();
+        ParallelCSVLoader.RowFile file = ParallelCSVLoader.scanKeys(csv, CSVUtil.PATIENT_HEADERS, KEY_HEADERS,
+                (keys, offset, length) -> rows.merge(normalize(keys[0]), new Row(keys[1], keys[2], offset, length),
+                        // Chunks finish in any order; the later row in the file wins, as in a full load
+                        (a, b) -> a.offset() > b.offset() ? a : b));
+        return new PatientRowIndex(file, rows);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public boolean contains(String mrn) {
+        return mrn != null && rows.containsKey(normalize(mrn));
+    }
+
+    // Parses the patient's row and drops it from the index; null if it is not (or no longer) indexed
+    public Patient hydrate(String mrn) throws IOException {
+        if (mrn == null) return null;
+        String key = normalize(mrn);
+        Row row = rows.remove(key);
+        if (row == null) return null;
+        try {
+            return file.read(row.offset(), row.length(), CSVUtil::patientFromFields);
+        } catch (IOException | RuntimeException e) {
+            rows.putIfAbsent(key, row);
+            throw e;
+        }
+    }
+
+    // Forgets a row whose patient was replaced or deleted after the snapshot
+    public void forget(String mrn) {
+        if (mrn != null) rows.remove(normalize(mrn));
+    }
+
+    // Answered from the name column alone, without parsing any row
+    public String findMrnByName(String name) {
+        for (Map.Entry<String, Row> entry : rows.entrySet()) {
+            if (entry.getValue().name().equalsIgnoreCase(name)) return entry.getKey();
+        }
+        return null;
+    }
+
+    // Hydrates every remaining row, in file order so the reads run forward through the file
+    public void hydrateAll(Consumer<Patient> action) throws IOException {
+        List<Map.Entry<String, Row>> pending = new ArrayList<>(rows.entrySet());
+        pending.sort(Comparator.comparingLong(entry -> entry.getValue().offset()));
+        for (Map.Entry<String, Row> entry : pending) {
+            Patient patient = hydrate(entry.getKey());
+            if (patient != null) action.accept(patient);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        rows.clear();
+        if (file != null) file.close();
+    }
+
+    private static String normalize(String mrn) {
+        return mrn.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,53 @@
+package com.airtribe.meditrack.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Crash-safe replacement of a whole file: the new content goes to a temp file in the same directory,
+// is forced to disk, and is then renamed over the target in one atomic step. A crash at any point
+// leaves either the old file or the new one, never a truncated mix.
+public class SafeFileWriter {
+
+    @FunctionalInterface
+    public interface Body {
+        // Writes the complete new content; must not close the channel
+        void writeTo(FileChannel channel) throws IOException;
+    }
+
+    private SafeFileWriter() {
+    }
+
+    public static void write(Path target, Body body) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                body.writeTo(channel);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        syncDirectory(dir);
+    }
+
+    // Makes the rename itself durable; not every platform lets a directory be opened, so this is best effort
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directory sync unsupported here; the rename is still atomic
+        }
+    }
+}
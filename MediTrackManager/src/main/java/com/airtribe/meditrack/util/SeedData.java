@@ -18,6 +18,11 @@ public class SeedData {
 
     public static void load(DoctorService ds, PatientService ps) {
         System.out.println("--- Seeding Data ---");
+        loadDoctors(ds);
+        loadPatients(ps);
+    }
+
+    public static void loadDoctors(DoctorService ds) {
 
         List<DayOfWeek> weekdays = Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
 
@@ -81,7 +86,9 @@ public class SeedData {
         ds.addDoctor(d3);
 
         System.out.println("Seeded Doctors (IDs: DOC001, DOC002, DOC003).");
+    }
 
+    public static void loadPatients(PatientService ps) {
         // --- PATIENTS ---
 
         // NOTE: MRN must be 6-12 chars, alphanumeric only (No hyphens!)
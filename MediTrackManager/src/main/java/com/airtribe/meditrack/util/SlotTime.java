@@ -0,0 +1,70 @@
+package com.airtribe.meditrack.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+// Slot-epoch time: an int counting 30-minute slots since 1970-01-01T00:00 (local wall-clock time, no zone).
+// Scheduling searches, compares and steps these ints; LocalDateTime is only built at the edges, for an
+// appointment or a caller. Conversions are plain arithmetic on the date's epoch day and the time of day.
+public final class SlotTime {
+    public static final int SLOT_MINUTES = DateUtil.SLOT_DURATION_MINUTES;
+    public static final int SLOT_SECONDS = SLOT_MINUTES * 60;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+    // Slot 0 (1970-01-01) was a Thursday; shifted so week position 0 is Monday 00:00
+    private static final int EPOCH_WEEK_SHIFT = 3 * SLOTS_PER_DAY;
+
+    private SlotTime() {
+    }
+
+    // Slot containing the date-time
+    public static int of(LocalDateTime dateTime) {
+        return dayStart(dateTime) + dateTime.toLocalTime().toSecondOfDay() / SLOT_SECONDS;
+    }
+
+    // First slot starting at or after the date-time
+    public static int ceil(LocalDateTime dateTime) {
+        LocalTime time = dateTime.toLocalTime();
+        boolean onBoundary = time.toSecondOfDay() % SLOT_SECONDS == 0 && time.getNano() == 0;
+        return onBoundary ? of(dateTime) : of(dateTime) + 1;
+    }
+
+    // First slot starting at or after the date-time's minute; seconds are ignored
+    public static int roundUp(LocalDateTime dateTime) {
+        int minuteOfDay = dateTime.getHour() * 60 + dateTime.getMinute();
+        return dayStart(dateTime) + (minuteOfDay + SLOT_MINUTES - 1) / SLOT_MINUTES;
+    }
+
+    // First slot that has not started yet, read from the clock once
+    public static int next() {
+        return ceil(LocalDateTime.now());
+    }
+
+    public static LocalDateTime toDateTime(int slot) {
+        return LocalDateTime.ofEpochSecond((long) slot * SLOT_SECONDS, 0, ZoneOffset.UTC);
+    }
+
+    // 0 for Monday 00:00 up to SLOTS_PER_WEEK - 1 for Sunday's last slot
+    public static int weekPosition(int slot) {
+        return Math.floorMod(slot + EPOCH_WEEK_SHIFT, SLOTS_PER_WEEK);
+    }
+
+    public static DayOfWeek dayOfWeek(int slot) {
+        return DayOfWeek.of(weekPosition(slot) / SLOTS_PER_DAY + 1);
+    }
+
+    public static int slotOfDay(int slot) {
+        return Math.floorMod(slot, SLOTS_PER_DAY);
+    }
+
+    // Second of the day at which a shift ends; LocalTime.MAX rounds up to midnight so the last slot fits
+    public static int endSecond(LocalTime end) {
+        return (int) ((end.toNanoOfDay() + 999_999_999L) / 1_000_000_000L);
+    }
+
+    private static int dayStart(LocalDateTime dateTime) {
+        return Math.toIntExact(dateTime.toLocalDate().toEpochDay() * SLOTS_PER_DAY);
+    }
+}
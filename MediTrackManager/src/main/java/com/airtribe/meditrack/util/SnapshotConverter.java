@@ -0,0 +1,45 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.Constants;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Converts the data directory between the CSV files and the binary snapshots.
+// Usage: java ... com.airtribe.meditrack.util.SnapshotConverter csv-to-bin|bin-to-csv
+public class SnapshotConverter {
+
+    private SnapshotConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String direction = args.length > 0 ? args[0] : "";
+        switch (direction) {
+            case "csv-to-bin" -> csvToSnapshot();
+            case "bin-to-csv" -> snapshotToCsv();
+            default -> {
+                System.out.println("Usage: SnapshotConverter csv-to-bin|bin-to-csv");
+                return;
+            }
+        }
+        System.out.println("Converted data in " + CSVUtil.getResourceDirectory());
+    }
+
+    public static void csvToSnapshot() throws IOException {
+        BinarySnapshot.writeDoctors(Paths.get(Constants.DOCTOR_SNAPSHOT), CSVUtil.readDoctorsFromCSV());
+        BinarySnapshot.writePatients(Paths.get(Constants.PATIENT_SNAPSHOT), CSVUtil.readPatientsFromCSV());
+        BinarySnapshot.writeAppointments(Paths.get(Constants.APPOINTMENT_SNAPSHOT), CSVUtil.readAppointmentsFromCSV());
+    }
+
+    // Missing snapshots are skipped rather than turned into empty CSV files
+    public static void snapshotToCsv() throws IOException {
+        Path doctors = Paths.get(Constants.DOCTOR_SNAPSHOT);
+        if (Files.isRegularFile(doctors)) CSVUtil.writeDoctorsToCSV(BinarySnapshot.readDoctors(doctors));
+        Path patients = Paths.get(Constants.PATIENT_SNAPSHOT);
+        if (Files.isRegularFile(patients)) CSVUtil.writePatientsToCSV(BinarySnapshot.readPatients(patients));
+        Path appointments = Paths.get(Constants.APPOINTMENT_SNAPSHOT);
+        if (Files.isRegularFile(appointments)) CSVUtil.writeAppointmentsToCSV(BinarySnapshot.readAppointments(appointments));
+    }
+}
@@ -0,0 +1,38 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.Constants;
+import com.airtribe.meditrack.interfaces.StorageBackend;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Picks the storage backend for a data directory from -Dmeditrack.storage.backend=csv|binary|jsonl.
+// Without it, the older -Dmeditrack.snapshot.format=CSV|BINARY|BOTH still decides; unknown values mean CSV.
+public class StorageBackends {
+
+    private StorageBackends() {
+    }
+
+    public static StorageBackend fromConfig(Path dir) {
+        String name = System.getProperty(Constants.STORAGE_BACKEND_PROPERTY);
+        if (name == null || name.isBlank()) return fromSnapshotFormat(dir);
+        return create(name, dir);
+    }
+
+    public static StorageBackend create(String name, Path dir) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case BinaryBackend.NAME -> new BinaryBackend(dir, false);
+            case JsonLinesBackend.NAME, "json" -> new JsonLinesBackend(dir);
+            default -> new CsvBackend(dir);
+        };
+    }
+
+    private static StorageBackend fromSnapshotFormat(Path dir) {
+        String format = System.getProperty(Constants.SNAPSHOT_FORMAT_PROPERTY, "").trim().toUpperCase(Locale.ROOT);
+        return switch (format) {
+            case "BINARY" -> new BinaryBackend(dir, false);
+            case "BOTH" -> new BinaryBackend(dir, true);
+            default -> new CsvBackend(dir);
+        };
+    }
+}
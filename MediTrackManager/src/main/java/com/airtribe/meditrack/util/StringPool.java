@@ -0,0 +1,69 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.Constants;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Load-time canonicalization of repeated column values: equal strings, and equal lists of them, come
+// back as one shared instance. Each pool is bounded; once full, unseen values pass through unpooled,
+// so a column that turns out to be mostly unique costs at most the bound.
+public class StringPool {
+    // Blood groups, allergies, conditions, medications, qualifications, OPD rooms
+    public static final StringPool CODES = new StringPool(Constants.STRING_POOL_CODES_CAPACITY);
+    // Addresses repeat far less, so they get their own pool and cannot crowd out the codes
+    public static final StringPool ADDRESSES = new StringPool(Constants.STRING_POOL_ADDRESSES_CAPACITY);
+
+    private final int capacity;
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<List<String>, List<String>> lists = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public StringPool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public String intern(String value) {
+        if (value == null) return null;
+        String pooled = strings.get(value);
+        if (pooled != null) return pooled;
+        if (size.get() >= capacity) return value;
+        pooled = strings.putIfAbsent(value, value);
+        if (pooled != null) return pooled;
+        size.incrementAndGet();
+        return value;
+    }
+
+    // Immutable, array-backed list of pooled elements; patients with the same list share it
+    public List<String> internList(List<String> values) {
+        if (values == null || values.isEmpty()) return List.of();
+        return internList(values.toArray(new String[0]));
+    }
+
+    // Pools the elements in place; null elements become empty strings
+    public List<String> internList(String[] elements) {
+        if (elements.length == 0) return List.of();
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = elements[i] == null ? "" : intern(elements[i]);
+        }
+        List<String> list = List.of(elements);
+        List<String> pooled = lists.get(list);
+        if (pooled != null) return pooled;
+        if (size.get() >= capacity) return list;
+        pooled = lists.putIfAbsent(list, list);
+        if (pooled != null) return pooled;
+        size.incrementAndGet();
+        return list;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public void clear() {
+        strings.clear();
+        lists.clear();
+        size.set(0);
+    }
+}
@@ -0,0 +1,169 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.enums.DoctorType;
+import com.airtribe.meditrack.exception.InvalidDataException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import static com.airtribe.meditrack.constants.Constants.SYMPTOM_TRAINING_RESOURCE;
+
+// Offline symptom classifier: multinomial naive Bayes over hashed character 3- and 4-grams of the text
+// (lower-cased, punctuation folded to single spaces, padded so word edges count), trained from labelled
+// examples (see symptom_training.csv). It needs no exact keyword, so it can place phrasings SymptomMatcher
+// has never seen; classify allocates only its score array.
+public class SymptomClassifier {
+    private static final DoctorType[] TYPES = DoctorType.values();
+    private static final int BUCKET_BITS = 14;
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+    private static final double SMOOTHING = 0.1;
+    // Scores are averaged per n-gram and sharpened by this factor before the softmax; the raw naive Bayes
+    // posterior is close to 1 for almost any text and says little about how sure the model is
+    private static final double CONFIDENCE_SHARPNESS = 8.0;
+    private static final float UNTRAINED = -1e30f;
+
+    public record Prediction(DoctorType type, double confidence) {
+    }
+
+    // log P(bucket | type), bucket-major so the scores of one n-gram sit side by side
+    private final float[] logLikelihood;
+    // Uniform over the types that have examples, so a well-covered specialty is not favoured for that alone
+    private final float[] logPrior;
+    private final int examples;
+
+    private SymptomClassifier(float[] logLikelihood, float[] logPrior, int examples) {
+        this.logLikelihood = logLikelihood;
+        this.logPrior = logPrior;
+        this.examples = examples;
+    }
+
+    public static SymptomClassifier train(List<Map.Entry<DoctorType, String>> examples) {
+        int types = TYPES.length;
+        long[] counts = new long[BUCKETS * types];
+        long[] totals = new long[types];
+        for (Map.Entry<DoctorType, String> example : examples) {
+            int type = example.getKey().ordinal();
+            forEachGram(example.getValue(), bucket -> {
+                counts[bucket * types + type]++;
+                totals[type]++;
+            });
+        }
+        float[] logLikelihood = new float[BUCKETS * types];
+        float[] logPrior = new float[types];
+        for (int type = 0; type < types; type++) {
+            logPrior[type] = totals[type] == 0 ? UNTRAINED : 0f;
+            double denominator = Math.log(totals[type] + SMOOTHING * BUCKETS);
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                logLikelihood[bucket * types + type] =
+                        (float) (Math.log(counts[bucket * types + type] + SMOOTHING) - denominator);
+            }
+        }
+        return new SymptomClassifier(logLikelihood, logPrior, examples.size());
+    }
+
+    // Lines of doctorType,text; blank lines and lines starting with # are skipped
+    public static SymptomClassifier train(Reader source) throws IOException {
+        List<Map.Entry<DoctorType, String>> examples = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int comma = line.indexOf(',');
+            if (comma < 0)
+                throw new InvalidDataException("Symptom training line " + lineNumber + " must be doctorType,text");
+            try {
+                DoctorType type = DoctorType.valueOf(line.substring(0, comma).trim().toUpperCase(Locale.ROOT));
+                examples.add(Map.entry(type, line.substring(comma + 1).trim()));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidDataException("Symptom training line " + lineNumber + " has an unknown doctor type", e);
+            }
+        }
+        return train(examples);
+    }
+
+    public static SymptomClassifier fromResource(String name) {
+        InputStream in = SymptomClassifier.class.getResourceAsStream(name);
+        if (in == null) throw new InvalidDataException("Symptom training resource not found: " + name);
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return train(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Trained on the bundled examples on first use
+    public static SymptomClassifier defaultClassifier() {
+        return Bundled.CLASSIFIER;
+    }
+
+    private static final class Bundled {
+        private static final SymptomClassifier CLASSIFIER = fromResource(SYMPTOM_TRAINING_RESOURCE);
+    }
+
+    public int exampleCount() {
+        return examples;
+    }
+
+    // Most likely specialty and its confidence in (0, 1]; text with no letters or digits gets confidence 0
+    public Prediction classify(String text) {
+        int types = TYPES.length;
+        double[] scores = new double[types + 1];
+        forEachGram(text, bucket -> {
+            int base = bucket * types;
+            for (int type = 0; type < types; type++) scores[type] += logLikelihood[base + type];
+            scores[types]++;
+        });
+        double grams = scores[types];
+        if (grams == 0) return new Prediction(DoctorType.GENERAL_PRACTITIONER, 0);
+        int best = 0;
+        for (int type = 0; type < types; type++) {
+            scores[type] = (scores[type] / grams) * CONFIDENCE_SHARPNESS + logPrior[type];
+            if (scores[type] > scores[best]) best = type;
+        }
+        double sum = 0;
+        for (int type = 0; type < types; type++) sum += Math.exp(scores[type] - scores[best]);
+        return new Prediction(TYPES[best], 1 / sum);
+    }
+
+    // Hashed 3- and 4-grams of the normalised text, read straight from the string
+    private static void forEachGram(String text, IntConsumer sink) {
+        if (text == null) return;
+        long window = ' ';
+        int filled = 1;
+        boolean content = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            else if (c >= 0x80) c = Character.toLowerCase(c);
+            if (!Character.isLetterOrDigit(c)) {
+                // Runs of separators fold into the one space already in the window
+                if ((window & 0xFFFF) == ' ') continue;
+                c = ' ';
+            } else {
+                content = true;
+            }
+            window = (window << 16) | c;
+            filled++;
+            if (!content) continue;
+            if (filled >= 3) sink.accept(bucket(window & 0xFFFF_FFFF_FFFFL));
+            if (filled >= 4) sink.accept(bucket(window));
+        }
+    }
+
+    private static int bucket(long gram) {
+        return (int) ((gram * 0x9E3779B97F4A7C15L) >>> (64 - BUCKET_BITS));
+    }
+}
@@ -0,0 +1,224 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.enums.DoctorType;
+import com.airtribe.meditrack.exception.InvalidDataException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static com.airtribe.meditrack.constants.Constants.SYMPTOM_KEYWORDS_RESOURCE;
+
+// Symptom triage over a keyword dictionary (see symptom_keywords.csv), compiled into an Aho-Corasick
+// automaton: one pass over the text finds every keyword at once, whatever the dictionary size. Keywords
+// only count on word boundaries, so "ear" is not found inside "heart".
+public class SymptomMatcher {
+    private static final DoctorType[] TYPES = DoctorType.values();
+    private static final int ROOT = 0;
+
+    private record Keyword(int length, boolean prefix, DoctorType type, double weight) {
+    }
+
+    private final Keyword[] keywords;
+    // Lower-cased keyword character -> transition column; characters outside the dictionary map to -1
+    private final int[] columns;
+    private final int width;
+    // Complete transition table (goto plus failure links), states * width
+    private final int[] next;
+    // Keyword ids ending at each state, and the nearest shorter state (by failure links) that has some
+    private final int[][] outputs;
+    private final int[] outputLink;
+
+    private SymptomMatcher(List<String> words, List<Keyword> keywords) {
+        this.keywords = keywords.toArray(new Keyword[0]);
+        char max = 0;
+        for (String word : words) {
+            for (int i = 0; i < word.length(); i++) max = (char) Math.max(max, word.charAt(i));
+        }
+        columns = new int[max + 1];
+        Arrays.fill(columns, -1);
+        int width = 0;
+        for (String word : words) {
+            for (int i = 0; i < word.length(); i++) {
+                if (columns[word.charAt(i)] < 0) columns[word.charAt(i)] = width++;
+            }
+        }
+        this.width = width;
+
+        // Trie
+        List<int[]> rows = new ArrayList<>();
+        List<int[]> ends = new ArrayList<>();
+        rows.add(emptyRow());
+        ends.add(new int[0]);
+        for (int id = 0; id < words.size(); id++) {
+            String word = words.get(id);
+            int state = ROOT;
+            for (int i = 0; i < word.length(); i++) {
+                int column = columns[word.charAt(i)];
+                if (rows.get(state)[column] < 0) {
+                    rows.get(state)[column] = rows.size();
+                    rows.add(emptyRow());
+                    ends.add(new int[0]);
+                }
+                state = rows.get(state)[column];
+            }
+            int[] ids = ends.get(state);
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = id;
+            ends.set(state, ids);
+        }
+
+        // Failure links, breadth first, folded into the transition table
+        int states = rows.size();
+        next = new int[states * width];
+        outputs = ends.toArray(new int[0][]);
+        outputLink = new int[states];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int column = 0; column < width; column++) {
+            int child = rows.get(ROOT)[column];
+            if (child < 0) {
+                next[column] = ROOT;
+            } else {
+                next[column] = child;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int column = 0; column < width; column++) {
+                int child = rows.get(state)[column];
+                int fallback = next[fail[state] * width + column];
+                if (child < 0) {
+                    next[state * width + column] = fallback;
+                } else {
+                    next[state * width + column] = child;
+                    fail[child] = fallback;
+                    outputLink[child] = outputs[fallback].length > 0 ? fallback : outputLink[fallback];
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    private int[] emptyRow() {
+        int[] row = new int[width];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    // Lines of keyword,doctorType,weight; blank lines and lines starting with # are skipped
+    public static SymptomMatcher load(Reader source) throws IOException {
+        List<String> words = new ArrayList<>();
+        List<Keyword> keywords = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split(",");
+            if (fields.length != 3)
+                throw new InvalidDataException("Symptom keyword line " + lineNumber + " must be keyword,doctorType,weight");
+            String word = fields[0].trim().toLowerCase(Locale.ROOT);
+            boolean prefix = word.endsWith("*");
+            if (prefix) word = word.substring(0, word.length() - 1);
+            if (word.isEmpty())
+                throw new InvalidDataException("Symptom keyword line " + lineNumber + " has an empty keyword");
+            try {
+                DoctorType type = DoctorType.valueOf(fields[1].trim().toUpperCase(Locale.ROOT));
+                double weight = Double.parseDouble(fields[2].trim());
+                if (!(weight > 0))
+                    throw new InvalidDataException("Symptom keyword line " + lineNumber + " needs a positive weight");
+                words.add(word);
+                keywords.add(new Keyword(word.length(), prefix, type, weight));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidDataException("Symptom keyword line " + lineNumber + " is invalid: " + line, e);
+            }
+        }
+        return new SymptomMatcher(words, keywords);
+    }
+
+    public static SymptomMatcher fromResource(String name) {
+        InputStream in = SymptomMatcher.class.getResourceAsStream(name);
+        if (in == null) throw new InvalidDataException("Symptom keyword resource not found: " + name);
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The bundled dictionary, compiled on first use
+    public static SymptomMatcher defaultMatcher() {
+        return Bundled.MATCHER;
+    }
+
+    private static final class Bundled {
+        private static final SymptomMatcher MATCHER = fromResource(SYMPTOM_KEYWORDS_RESOURCE);
+    }
+
+    public int size() {
+        return keywords.length;
+    }
+
+    // Specialties whose keywords occur in the text, best score first; ties go to the one mentioned first.
+    // Empty when nothing matches.
+    public List<DoctorType> rank(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        double[] scores = new double[TYPES.length];
+        int[] firstSeen = new int[TYPES.length];
+        Arrays.fill(firstSeen, Integer.MAX_VALUE);
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            else if (c >= 0x80) c = Character.toLowerCase(c);
+            int column = c < columns.length ? columns[c] : -1;
+            state = column < 0 ? ROOT : next[state * width + column];
+            for (int s = outputs[state].length > 0 ? state : outputLink[state]; s != ROOT; s = outputLink[s]) {
+                for (int id : outputs[s]) {
+                    Keyword keyword = keywords[id];
+                    int start = i - keyword.length() + 1;
+                    if (start > 0 && isWordChar(text.charAt(start - 1))) continue;
+                    if (!keyword.prefix() && i + 1 < text.length() && isWordChar(text.charAt(i + 1))) continue;
+                    int type = keyword.type().ordinal();
+                    scores[type] += keyword.weight();
+                    firstSeen[type] = Math.min(firstSeen[type], start);
+                }
+            }
+        }
+        // Insertion sort: at most one entry per specialty
+        DoctorType[] ranked = new DoctorType[TYPES.length];
+        int count = 0;
+        for (DoctorType type : TYPES) {
+            if (scores[type.ordinal()] == 0) continue;
+            int at = count++;
+            while (at > 0 && ranksBefore(type, ranked[at - 1], scores, firstSeen)) {
+                ranked[at] = ranked[at - 1];
+                at--;
+            }
+            ranked[at] = type;
+        }
+        return count == 0 ? List.of() : Arrays.asList(ranked).subList(0, count);
+    }
+
+    private static boolean ranksBefore(DoctorType a, DoctorType b, double[] scores, int[] firstSeen) {
+        double byScore = scores[a.ordinal()] - scores[b.ordinal()];
+        return byScore != 0 ? byScore > 0 : firstSeen[a.ordinal()] < firstSeen[b.ordinal()];
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+}
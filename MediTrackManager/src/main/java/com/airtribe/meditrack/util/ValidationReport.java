@@ -0,0 +1,47 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.exception.InvalidDataException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Failures collected by a bulk validation (see Validator.validateAll), one per rejected record, in record
+// order. validateAll clears the report first, so one instance can be reused from load to load.
+public class ValidationReport {
+    public record Failure(int index, String message) {
+    }
+
+    private final List<Failure> failures = new ArrayList<>();
+    private int checked;
+
+    public boolean isValid() {
+        return failures.isEmpty();
+    }
+
+    public int checkedCount() {
+        return checked;
+    }
+
+    public List<Failure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public void clear() {
+        failures.clear();
+        checked = 0;
+    }
+
+    // Raised with the first failure's message, so a bulk load fails as a per-record check would
+    public void throwIfInvalid() {
+        if (failures.isEmpty()) return;
+        String message = failures.get(0).message();
+        if (failures.size() > 1) message += " (and " + (failures.size() - 1) + " more invalid records)";
+        throw new InvalidDataException(message);
+    }
+
+    void record(int checked, List<Failure> failures) {
+        this.checked = checked;
+        this.failures.addAll(failures);
+    }
+}
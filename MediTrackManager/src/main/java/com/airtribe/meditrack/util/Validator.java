@@ -9,21 +9,47 @@ import com.airtribe.meditrack.exception.InvalidDataException;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+// Each record check comes in two forms: checkX returns the first failure message (null when valid) and
+// validateX throws it as an InvalidDataException. Formats are matched by hand-written scanners that accept
+// exactly what the documented patterns do, so no regex is compiled or run per call.
 public class Validator {
+    private static final Set<String> BLOOD_GROUPS = Set.of("A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-");
+    // Below this many records a bulk validation runs on the calling thread
+    private static final int PARALLEL_VALIDATION_THRESHOLD = 2048;
+
     // BASIC VALIDATORS
     public static boolean isNonEmpty(String value) {
         return value != null && !value.trim().isEmpty();
     }
+    // ^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$
     public static boolean isValidEmail(String email) {
-        return isNonEmpty(email) &&
-                email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
-    }
+        if (email == null) return false;
+        int at = email.indexOf('@');
+        if (at <= 0 || at == email.length() - 1) return false;
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (i == at || isAsciiAlphanumeric(c) || c == '.' || c == '-') continue;
+            if (i < at && (c == '+' || c == '_')) continue;
+            return false;
+        }
+        return true;
+    }
+    // ^[0-9]{10,15}$
     public static boolean isValidPhone(String contactNumber) {
-        return isNonEmpty(contactNumber) &&
-                contactNumber.matches("^[0-9]{10,15}$");
+        if (contactNumber == null || contactNumber.length() < 10 || contactNumber.length() > 15) return false;
+        for (int i = 0; i < contactNumber.length(); i++) {
+            char c = contactNumber.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
     }
     public static boolean isValidAge(int age) {
         return age > 0 && age < 120;
@@ -58,95 +84,162 @@ public class Validator {
     public static boolean isValidId(String id) {
         return isNonEmpty(id);
     }
+    // ^[A-Za-z0-9]{6,12}$
     public static boolean isValidMRN(String mrn) {
-        return isNonEmpty(mrn) && mrn.matches("^[A-Za-z0-9]{6,12}$");
+        if (mrn == null || mrn.length() < 6 || mrn.length() > 12) return false;
+        for (int i = 0; i < mrn.length(); i++) {
+            if (!isAsciiAlphanumeric(mrn.charAt(i))) return false;
+        }
+        return true;
+    }
+    private static boolean isAsciiAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    // BULK VALIDATION
+    // Runs check over every record, in parallel for large loads, and collects the failures into the
+    // (cleared) report instead of stopping at the first one
+    public static <T> ValidationReport validateAll(Collection<? extends T> records, Function<? super T, String> check,
+                                                   ValidationReport report) {
+        report.clear();
+        if (records == null || records.isEmpty()) return report;
+        Object[] items = records.toArray();
+        IntStream indexes = IntStream.range(0, items.length);
+        if (items.length >= PARALLEL_VALIDATION_THRESHOLD) indexes = indexes.parallel();
+        @SuppressWarnings("unchecked")
+        List<ValidationReport.Failure> failures = indexes
+                .mapToObj(i -> {
+                    String message = check.apply((T) items[i]);
+                    return message == null ? null : new ValidationReport.Failure(i, message);
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        report.record(items.length, failures);
+        return report;
+    }
+    public static <T> ValidationReport validateAll(Collection<? extends T> records, Function<? super T, String> check) {
+        return validateAll(records, check, new ValidationReport());
+    }
+    private static void throwIf(String failure) {
+        if (failure != null) throw new InvalidDataException(failure);
     }
 
     // PATIENT VALIDATION
-    public static void validatePatient(Patient p) {
+    public static String checkPatient(Patient p) {
         if (!isNonEmpty(p.getName()))
-            throw new InvalidDataException("Patient name cannot be empty");
+            return "Patient name cannot be empty";
         if (!isValidAge(p.getAge()))
-            throw new InvalidDataException("Patient age must be between 1 and 119");
+            return "Patient age must be between 1 and 119";
         if (!isNonEmpty(p.getAddress()))
-            throw new InvalidDataException("Address cannot be empty");
+            return "Address cannot be empty";
         if (!isValidPhone(p.getContactNumber()))
-            throw new InvalidDataException("Invalid patient contact number");
+            return "Invalid patient contact number";
         if (!isValidEmail(p.getEmail()))
-            throw new InvalidDataException("Invalid patient email");
+            return "Invalid patient email";
         if (p.getGender() == null)
-            throw new InvalidDataException("Gender cannot be null");
+            return "Gender cannot be null";
         if (!isValidId(p.getMrn()))
-            throw new InvalidDataException("MRN cannot be empty");
+            return "MRN cannot be empty";
         if (!isValidPhone(p.getEmergencyContact()))
-            throw new InvalidDataException("Invalid emergency contact number");
+            return "Invalid emergency contact number";
         if (p.getContactNumber().equals(p.getEmergencyContact()))
-            throw new InvalidDataException("Emergency contact cannot be same as primary contact");
-        Set<String> validGroups = Set.of("A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-");
-        if (!validGroups.contains(p.getBloodGroup()))
-            throw new InvalidDataException("Invalid blood group");
+            return "Emergency contact cannot be same as primary contact";
+        if (p.getBloodGroup() == null || !BLOOD_GROUPS.contains(p.getBloodGroup()))
+            return "Invalid blood group";
 //        if (!isValidList(p.getKnownAllergies()))
-//            throw new InvalidDataException("Known allergies cannot be null or contain empty values");
+//            return "Known allergies cannot be null or contain empty values";
 //        if (!isValidList(p.getChronicConditions()))
-//            throw new InvalidDataException("Chronic conditions cannot be null or contain empty values");
+//            return "Chronic conditions cannot be null or contain empty values";
 //        if (!isValidList(p.getCurrentMedications()))
-//            throw new InvalidDataException("Medication list cannot be null or contain empty values");
+//            return "Medication list cannot be null or contain empty values";
+        return null;
+    }
+    public static void validatePatient(Patient p) {
+        throwIf(checkPatient(p));
     }
 
     // DOCTOR VALIDATION
-    public static void validateDoctor(Doctor d) {
+    public static String checkDoctor(Doctor d) {
         if (!isNonEmpty(d.getName()))
-            throw new InvalidDataException("Doctor name cannot be empty");
+            return "Doctor name cannot be empty";
         if (!isValidAge(d.getAge()))
-            throw new InvalidDataException("Doctor age must be between 1 and 119");
+            return "Doctor age must be between 1 and 119";
         if (!isNonEmpty(d.getAddress()))
-            throw new InvalidDataException("Doctor address cannot be empty");
+            return "Doctor address cannot be empty";
         if (!isValidPhone(d.getContactNumber()))
-            throw new InvalidDataException("Invalid doctor contact number");
+            return "Invalid doctor contact number";
         if (!isValidEmail(d.getEmail()))
-            throw new InvalidDataException("Invalid doctor email");
+            return "Invalid doctor email";
         if (d.getGender() == null)
-            throw new InvalidDataException("Doctor gender cannot be null");
+            return "Doctor gender cannot be null";
         if (!isValidDoctorType(d.getDoctorType()))
-            throw new InvalidDataException("Doctor type cannot be null");
+            return "Doctor type cannot be null";
         if (!isValidDoctorQualification(d.getQualification()))
-            throw new InvalidDataException("Qualification cannot be empty");
+            return "Qualification cannot be empty";
         if (!isValidExperience(d.getYearsOfExperience()))
-            throw new InvalidDataException("Experience must be between 0 and 60 years");
+            return "Experience must be between 0 and 60 years";
         if (!isValidOpdRoom(d.getOpdRoom()))
-            throw new InvalidDataException("OPD room cannot be empty");
+            return "OPD room cannot be empty";
         if (!isValidTimeRange(d.getAvailableFrom(), d.getAvailableTo()))
-            throw new InvalidDataException("Available time range is invalid");
+            return "Available time range is invalid";
         if (d.getAvailableDays() == null || d.getAvailableDays().isEmpty())
-            throw new InvalidDataException("Doctor must have at least one available day");
+            return "Doctor must have at least one available day";
+        return null;
+    }
+    public static void validateDoctor(Doctor d) {
+        throwIf(checkDoctor(d));
     }
 
     // APPOINTMENT VALIDATION
-    public static void validateAppointment(Appointment a) {
+    public static String checkAppointment(Appointment a) {
         if (!isValidId(a.getAppointmentId()))
-            throw new InvalidDataException("Appointment ID is invalid");
+            return "Appointment ID is invalid";
         if (!isValidId(a.getDoctorId()))
-            throw new InvalidDataException("Doctor ID is invalid");
+            return "Doctor ID is invalid";
         if (!isValidId(a.getPatientId()))
-            throw new InvalidDataException("Patient ID is invalid");
+            return "Patient ID is invalid";
         if (!isValidAppointmentSlot(a.getTimeSlot()))
-            throw new InvalidDataException("Appointment time must be in the future");
+            return "Appointment time must be in the future";
+        return null;
+    }
+    public static void validateAppointment(Appointment a) {
+        throwIf(checkAppointment(a));
+    }
+
+    // Stored appointments may already be in the past; only their identity and slot must be intact
+    public static String checkStoredAppointment(Appointment a) {
+        if (!isValidId(a.getAppointmentId()))
+            return "Appointment ID is invalid";
+        if (!isValidId(a.getDoctorId()))
+            return "Doctor ID is invalid";
+        if (!isValidId(a.getPatientId()))
+            return "Patient ID is invalid";
+        if (a.getTimeSlot() == null)
+            return "Appointment time is missing";
+        return null;
+    }
+    public static void validateStoredAppointment(Appointment a) {
+        throwIf(checkStoredAppointment(a));
     }
 
     // BILL VALIDATION
-    public static void validateBill(Bill bill) {
+    public static String checkBill(Bill bill) {
         if (!isValidId(bill.getBillId()))
-            throw new InvalidDataException("Bill ID cannot be empty");
+            return "Bill ID cannot be empty";
         if (bill.getAppointment() == null || !isValidId(bill.getAppointment().getAppointmentId()))
-            throw new InvalidDataException("Appointment ID cannot be empty");
+            return "Appointment ID cannot be empty";
         if (!isValidAmount(bill.getConsultationFee()))
-            throw new InvalidDataException("Consultation fee cannot be negative");
+            return "Consultation fee cannot be negative";
         if (!isValidAmount(bill.getMedicationCost()))
-            throw new InvalidDataException("Medication cost cannot be negative");
+            return "Medication cost cannot be negative";
         if (!isValidTaxRate(bill.getTaxRate()))
-            throw new InvalidDataException("Tax rate must be between 0 and 50");
+            return "Tax rate must be between 0 and 50";
         if (!isValidAmount(bill.getTotalAmount()))
-            throw new InvalidDataException("Total amount cannot be negative");
+            return "Total amount cannot be negative";
+        return null;
+    }
+    public static void validateBill(Bill bill) {
+        throwIf(checkBill(bill));
     }
 
 }
@@ -0,0 +1,399 @@
+package com.airtribe.meditrack.util;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Append-only change log for one entity file. Each entry is framed as [length][crc32][CSV record],
+// where the record's first column is the operation (U = upsert, D = delete). Replay stops at the
+// first torn or corrupt frame, so a crash mid-append loses at most that one entry.
+public class WriteAheadLog implements Closeable {
+    public static final String OP_UPSERT = "U";
+    public static final String OP_DELETE = "D";
+    private static final int FRAME_HEADER_BYTES = 8;
+
+    public enum FsyncPolicy {
+        PER_OP,        // force after every append; the caller returns once its entry is durable
+        GROUP_COMMIT,  // a background writer forces batches; callers wait for their batch
+        INTERVAL;      // appends go to the OS cache and are forced on a timer
+
+        public static FsyncPolicy fromProperty(String property, FsyncPolicy fallback) {
+            String value = System.getProperty(property);
+            if (value == null || value.isBlank()) return fallback;
+            try {
+                return FsyncPolicy.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return fallback;
+            }
+        }
+    }
+
+    // One append or one batch: its frames are written and forced together by the group writer
+    private record PendingWrite(List<ByteBuffer> frames, CompletableFuture<Void> done) {
+    }
+    private static final PendingWrite SHUTDOWN = new PendingWrite(List.of(), new CompletableFuture<>());
+
+    private final Path path;
+    private final FsyncPolicy policy;
+    private FileChannel channel;
+    private long entries;
+    private boolean dirty;
+    // Set when a failed append could not be rolled back; the file may end in a partial frame
+    private boolean failed;
+    private volatile boolean closed;
+    // Held to check closed and enqueue as one step, so nothing can be queued behind SHUTDOWN
+    private final Object enqueueLock = new Object();
+    private LinkedBlockingQueue<PendingWrite> queue;
+    private Thread writer;
+    private ScheduledExecutorService flusher;
+
+    private WriteAheadLog(Path path, FsyncPolicy policy) throws IOException {
+        this.path = path;
+        this.policy = policy;
+        this.channel = openChannel(path);
+        this.entries = truncateTornTail();
+        channel.position(channel.size());
+    }
+
+    // Opens (or creates) the log, recovers it, and only then starts the policy's background thread
+    public static WriteAheadLog open(Path path, FsyncPolicy policy, long intervalMillis) throws IOException {
+        WriteAheadLog log = new WriteAheadLog(path, policy);
+        log.start(intervalMillis);
+        return log;
+    }
+
+    private void start(long intervalMillis) {
+        if (policy == FsyncPolicy.GROUP_COMMIT) {
+            queue = new LinkedBlockingQueue<>();
+            writer = new Thread(this::writeBatches, "wal-writer-" + path.getFileName());
+            writer.setDaemon(true);
+            writer.start();
+        } else if (policy == FsyncPolicy.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "wal-flusher-" + path.getFileName());
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::forceQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static FileChannel openChannel(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // Entries appended since the last reset, i.e. the work a recovery would replay
+    public synchronized long size() {
+        return entries;
+    }
+
+    public void appendUpsert(Object... values) throws IOException {
+        append(OP_UPSERT, values);
+    }
+
+    public void appendDelete(String key) throws IOException {
+        append(OP_DELETE, key);
+    }
+
+    private void append(String op, Object... values) throws IOException {
+        appendFrames(List.of(encode(op, values)));
+    }
+
+    // Several entries committed together: written in one pass and never split across two fsyncs
+    public Batch batch() {
+        return new Batch();
+    }
+
+    public class Batch {
+        private final List<ByteBuffer> frames = new ArrayList<>();
+
+        private Batch() {
+        }
+
+        public Batch upsert(Object... values) {
+            frames.add(encode(OP_UPSERT, values));
+            return this;
+        }
+
+        public Batch delete(String key) {
+            frames.add(encode(OP_DELETE, key));
+            return this;
+        }
+
+        public void commit() throws IOException {
+            if (!frames.isEmpty()) appendFrames(frames);
+        }
+    }
+
+    private static ByteBuffer encode(String op, Object... values) {
+        Object[] record = new Object[values.length + 1];
+        record[0] = op;
+        System.arraycopy(values, 0, record, 1, values.length);
+        return frame(CSVFormat.DEFAULT.format(record).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void appendFrames(List<ByteBuffer> frames) throws IOException {
+        if (policy == FsyncPolicy.GROUP_COMMIT) {
+            PendingWrite pending = new PendingWrite(List.copyOf(frames), new CompletableFuture<>());
+            synchronized (enqueueLock) {
+                if (closed) throw new IOException("Log is closed: " + path);
+                queue.add(pending);
+            }
+            awaitDurable(pending.done());
+            return;
+        }
+        synchronized (this) {
+            long start = startAppend();
+            try {
+                for (ByteBuffer frame : frames) writeFully(frame);
+                if (policy == FsyncPolicy.PER_OP) channel.force(false);
+            } catch (IOException e) {
+                throw rollBack(start, e);
+            }
+            entries += frames.size();
+            if (policy != FsyncPolicy.PER_OP) dirty = true;
+        }
+    }
+
+    // Feeds every intact entry to the consumer, oldest first
+    public synchronized void replay(Consumer<CSVRecord> consumer) throws IOException {
+        scanFrames(payload -> {
+            String line = new String(payload, StandardCharsets.UTF_8);
+            try (CSVParser parser = CSVParser.parse(line, CSVFormat.DEFAULT)) {
+                for (CSVRecord record : parser) consumer.accept(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Position to hand to discardUpTo once a snapshot taken after this call is safely written
+    public synchronized long mark() throws IOException {
+        return channel.position();
+    }
+
+    // Drops entries already captured by a snapshot; entries appended after the mark are kept and replay
+    // harmlessly over the new snapshot, since upserts and deletes are idempotent. The kept tail is written
+    // to a new file that replaces the log atomically, so a crash mid-compaction leaves the old log whole.
+    public synchronized void discardUpTo(long mark) throws IOException {
+        long discarded = framesBefore(mark);
+        FileChannel old = channel;
+        long size = old.size();
+        try {
+            SafeFileWriter.write(path, temp -> {
+                for (long at = mark; at < size; ) at += old.transferTo(at, size - at, temp);
+            });
+        } finally {
+            old.close();
+            channel = openChannel(path);
+            channel.position(channel.size());
+        }
+        entries -= discarded;
+        dirty = false;
+    }
+
+    public synchronized void force() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (enqueueLock) {
+            if (closed) return;
+            closed = true;
+            if (writer != null) queue.add(SHUTDOWN);
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+                // Whatever the writer did not get to never reaches the file; its appenders must not wait forever
+                List<PendingWrite> leftover = new ArrayList<>();
+                queue.drainTo(leftover);
+                IOException closedError = new IOException("Log is closed: " + path);
+                leftover.forEach(p -> p.done().completeExceptionally(closedError));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (flusher != null) flusher.shutdownNow();
+        synchronized (this) {
+            force();
+            channel.close();
+        }
+    }
+
+    // Group commit: take everything queued, write it in one pass, force once, release all waiters
+    private void writeBatches() {
+        List<PendingWrite> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch);
+            running = !batch.remove(SHUTDOWN);
+            if (batch.isEmpty()) continue;
+            try {
+                synchronized (this) {
+                    long start = startAppend();
+                    try {
+                        writeFully(batch);
+                        channel.force(false);
+                    } catch (IOException e) {
+                        throw rollBack(start, e);
+                    }
+                    for (PendingWrite pending : batch) entries += pending.frames().size();
+                }
+                batch.forEach(p -> p.done().complete(null));
+            } catch (IOException e) {
+                batch.forEach(p -> p.done().completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    // Offset the next append starts at, or an error if an earlier append left the file unusable
+    private long startAppend() throws IOException {
+        if (failed) throw new IOException("Log is unusable after a failed append: " + path);
+        return channel.position();
+    }
+
+    // Cuts a failed append back off the file, so a partial frame never sits in front of later entries
+    private IOException rollBack(long start, IOException cause) {
+        try {
+            channel.truncate(start);
+            channel.position(start);
+        } catch (IOException e) {
+            failed = true;
+            cause.addSuppressed(e);
+        }
+        return cause;
+    }
+
+    private static void awaitDurable(CompletableFuture<Void> done) throws IOException {
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for log commit");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Log commit failed", e.getCause());
+        }
+    }
+
+    private void forceQuietly() {
+        try {
+            force();
+        } catch (IOException e) {
+            System.err.println("Warning: failed to sync " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void writeFully(ByteBuffer frame) throws IOException {
+        frame.rewind();
+        while (frame.hasRemaining()) channel.write(frame);
+    }
+
+    // Gathering write: the whole batch goes to the OS in as few system calls as it allows
+    private void writeFully(List<PendingWrite> batch) throws IOException {
+        List<ByteBuffer> gathered = new ArrayList<>();
+        for (PendingWrite pending : batch) gathered.addAll(pending.frames());
+        ByteBuffer[] frames = gathered.toArray(new ByteBuffer[0]);
+        for (ByteBuffer frame : frames) frame.rewind();
+        ByteBuffer last = frames[frames.length - 1];
+        while (last.hasRemaining()) channel.write(frames);
+    }
+
+    // Entries in [0, mark), stepping over frame headers only; mark is always a frame boundary
+    private long framesBefore(long mark) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        long frames = 0;
+        for (long position = 0; position < mark; frames++) {
+            header.clear();
+            channel.read(header, position);
+            position += FRAME_HEADER_BYTES + header.getInt(0);
+        }
+        return frames;
+    }
+
+    // Counts intact entries and cuts off a partially written last frame left by a crash
+    private long truncateTornTail() throws IOException {
+        long[] count = {0};
+        long validEnd = scanFrames(payload -> count[0]++);
+        if (validEnd < channel.size()) {
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        return count[0];
+    }
+
+    // Walks the frames in file order and returns the offset just past the last intact one
+    private long scanFrames(Consumer<byte[]> payloadConsumer) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        long position = 0;
+        long size = channel.size();
+        while (position + FRAME_HEADER_BYTES <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int crc = header.getInt();
+            if (length < 0 || position + FRAME_HEADER_BYTES + length > size) break;
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            while (payload.hasRemaining()) {
+                if (channel.read(payload, position + FRAME_HEADER_BYTES + payload.position()) < 0) break;
+            }
+            if (payload.hasRemaining() || crc32(payload.array()) != crc) break;
+            try {
+                payloadConsumer.accept(payload.array());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            position += FRAME_HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt(crc32(payload)).put(payload);
+        frame.flip();
+        return frame;
+    }
+
+    private static int crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
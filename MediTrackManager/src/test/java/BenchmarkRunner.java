@@ -0,0 +1,706 @@
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.enums.AppointmentStatus;
+import com.airtribe.meditrack.enums.DoctorType;
+import com.airtribe.meditrack.enums.GENDER;
+import com.airtribe.meditrack.interfaces.EntitySink;
+import com.airtribe.meditrack.interfaces.StorageBackend;
+import com.airtribe.meditrack.service.PatientService;
+import com.airtribe.meditrack.util.BinaryBackend;
+import com.airtribe.meditrack.util.BinarySnapshot;
+import com.airtribe.meditrack.util.CSVUtil;
+import com.airtribe.meditrack.util.CsvBackend;
+import com.airtribe.meditrack.util.DoctorCalendar;
+import com.airtribe.meditrack.util.IdDictionary;
+import com.airtribe.meditrack.util.IdGenerator;
+import com.airtribe.meditrack.util.DiskPatientStore;
+import com.airtribe.meditrack.util.JsonLinesBackend;
+import com.airtribe.meditrack.util.PatientRowIndex;
+import com.airtribe.meditrack.util.SlotTime;
+import com.airtribe.meditrack.util.StorageBackends;
+import com.airtribe.meditrack.util.StringPool;
+import com.airtribe.meditrack.util.WriteAheadLog;
+import com.airtribe.meditrack.util.SymptomClassifier;
+import com.airtribe.meditrack.util.SymptomMatcher;
+import com.airtribe.meditrack.util.Validator;
+
+import java.io.File;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Manual benchmarks; run with: java ... BenchmarkRunner [patients]
+public class BenchmarkRunner {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int patientCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        System.out.println("=================================================");
+        System.out.println("   MEDITRACK BENCHMARKS (" + patientCount + " patients)");
+        System.out.println("=================================================");
+
+        Path dir = Files.createTempDirectory("meditrack-bench");
+        try {
+            benchmarkStartupLoad(dir, patientCount);
+            benchmarkInternedHeap(dir, patientCount);
+            benchmarkBackends(dir, patientCount);
+            benchmarkDiskPatientStore(dir, patientCount);
+            benchmarkLazyStartup(dir, patientCount);
+            benchmarkIdGenerator();
+            benchmarkDenseKeys(dir, patientCount);
+            benchmarkLookupMiss();
+            benchmarkBulkValidation(patientCount);
+            benchmarkSymptomMatcher();
+            benchmarkDoctorSelection();
+            benchmarkSymptomClassifier();
+            benchmarkSlotSearch();
+            benchmarkDurableAppends(dir);
+        } finally {
+            for (File f : dir.toFile().listFiles()) f.delete();
+            dir.toFile().delete();
+        }
+    }
+
+    // --- STARTUP: CSV vs BINARY SNAPSHOT ---
+    private static void benchmarkStartupLoad(Path dir, int patientCount) throws Exception {
+        List<Doctor> doctors = syntheticDoctors(Math.max(10, patientCount / 100));
+        List<Patient> patients = syntheticPatients(patientCount);
+        List<Appointment> appointments = syntheticAppointments(patientCount, doctors.size());
+
+        Path doctorCsv = dir.resolve("doctor_data.csv");
+        Path patientCsv = dir.resolve("patient_data.csv");
+        Path appointmentCsv = dir.resolve("appointment_data.csv");
+        CSVUtil.writeDoctorsToCSV(doctors, doctorCsv);
+        CSVUtil.writePatientsToCSV(patients, patientCsv);
+        CSVUtil.writeAppointmentsToCSV(appointments, appointmentCsv);
+
+        Path doctorBin = dir.resolve("doctor_data.bin");
+        Path patientBin = dir.resolve("patient_data.bin");
+        Path appointmentBin = dir.resolve("appointment_data.bin");
+        BinarySnapshot.writeDoctors(doctorBin, doctors);
+        BinarySnapshot.writePatients(patientBin, patients);
+        BinarySnapshot.writeAppointments(appointmentBin, appointments);
+
+        System.out.printf("%-14s : CSV %,d bytes, snapshot %,d bytes%n", "Files",
+                Files.size(doctorCsv) + Files.size(patientCsv) + Files.size(appointmentCsv),
+                Files.size(doctorBin) + Files.size(patientBin) + Files.size(appointmentBin));
+
+        long csv = bestOf(() -> {
+            CSVUtil.readDoctorsFromCSV(doctorCsv);
+            CSVUtil.readPatientsFromCSV(patientCsv);
+            CSVUtil.readAppointmentsFromCSV(appointmentCsv);
+        });
+        long binary = bestOf(() -> {
+            BinarySnapshot.readDoctors(doctorBin);
+            BinarySnapshot.readPatients(patientBin);
+            BinarySnapshot.readAppointments(appointmentBin);
+        });
+        System.out.printf("%-14s : %,d ms (best of %d)%n", "CSV load", csv, ROUNDS);
+        System.out.printf("%-14s : %,d ms (best of %d)%n", "Snapshot load", binary, ROUNDS);
+    }
+
+    // --- HEAP: POOLED vs PER-ROW STRINGS AND LISTS ---
+    // Run with a large heap for a million patients, e.g. java -Xmx4g ... BenchmarkRunner 1000000
+    private static void benchmarkInternedHeap(Path dir, int patientCount) throws Exception {
+        Path patientCsv = dir.resolve("patient_heap.csv");
+        CSVUtil.writePatientsToCSV(syntheticPatients(patientCount), patientCsv);
+
+        long pooled = retainedBytes(() -> {
+            clearPools();
+            return CSVUtil.readPatientsFromCSV(patientCsv);
+        });
+        // Baseline: the pre-pooling layout, where every row owns its strings and its lists
+        long unpooled = retainedBytes(() -> {
+            List<Patient> rows = CSVUtil.readPatientsFromCSV(patientCsv);
+            rows.replaceAll(BenchmarkRunner::unpooledCopy);
+            clearPools();
+            return rows;
+        });
+        clearPools();
+        System.out.printf("%-14s : %,d bytes (%,d per patient)%n", "Heap unpooled", unpooled, unpooled / patientCount);
+        System.out.printf("%-14s : %,d bytes (%,d per patient)%n", "Heap pooled", pooled, pooled / patientCount);
+        System.out.printf("%-14s : %,d bytes (%.1f%%)%n", "Heap saved", unpooled - pooled, 100.0 * (unpooled - pooled) / unpooled);
+    }
+
+    // --- STORAGE BACKENDS: SNAPSHOT SAVE AND FULL LOAD ---
+    private static void benchmarkBackends(Path dir, int patientCount) throws Exception {
+        List<Patient> patients = syntheticPatients(patientCount);
+        for (String name : new String[]{CsvBackend.NAME, BinaryBackend.NAME, JsonLinesBackend.NAME}) {
+            Path backendDir = Files.createDirectories(dir.resolve(name));
+            try (StorageBackend backend = StorageBackends.create(name, backendDir)) {
+                long save = bestOf(() -> backend.snapshot(Patient.class, patients));
+                // Counting sink, so the figures are the backend's own parse and replay cost
+                long load = bestOf(() -> backend.load(Patient.class, new CountingSink<>()));
+                long bytes = Files.size(backendDir.resolve("patient_data." + (name.equals(BinaryBackend.NAME) ? "bin" : name)));
+                System.out.printf("%-14s : save %,d ms (%,d rows/s), load %,d ms (%,d rows/s), %,d bytes%n", "Backend " + name,
+                        save, perSecond(patientCount, save), load, perSecond(patientCount, load), bytes);
+            } finally {
+                for (File f : backendDir.toFile().listFiles()) f.delete();
+                backendDir.toFile().delete();
+            }
+        }
+    }
+
+    // --- DISK PATIENT STORE: HEAP, HOT AND COLD LOOKUPS vs IN-MEMORY ---
+    private static void benchmarkDiskPatientStore(Path dir, int patientCount) throws Exception {
+        int hotSet = 10_000;
+        Path base = dir.resolve("patient_store");
+        long[] loadMillis = new long[1];
+        PatientService memory = new PatientService();
+        long memoryHeap = retainedBytes(() -> {
+            memory.bulkLoader();
+            for (Patient p : syntheticPatients(patientCount)) memory.addPatient(p);
+            memory.getChangeTracker().clear();
+            return memory;
+        });
+        PatientService disk = new PatientService();
+        long diskHeap = retainedBytes(() -> {
+            long start = System.nanoTime();
+            disk.useDiskStore(new DiskPatientStore(base, hotSet));
+            for (Patient p : syntheticPatients(patientCount)) disk.addPatient(p);
+            disk.getDiskStore().sync();
+            loadMillis[0] = (System.nanoTime() - start) / 1_000_000;
+            return disk;
+        });
+        long fileBytes = Files.size(dir.resolve("patient_store.dat")) + Files.size(dir.resolve("patient_store.idx"));
+        try (DiskPatientStore store = disk.getDiskStore()) {
+            int lookups = 200_000;
+            String[] hotMrns = new String[lookups];
+            String[] coldMrns = new String[lookups];
+            java.util.Random random = new java.util.Random(42);
+            for (int i = 0; i < lookups; i++) {
+                hotMrns[i] = "MRN" + random.nextInt(Math.min(hotSet, patientCount) / 2);
+                coldMrns[i] = "MRN" + random.nextInt(patientCount);
+            }
+            for (String mrn : hotMrns) disk.SearchById(mrn);
+            long memoryNs = nanosPerOp(lookups, () -> { for (String mrn : hotMrns) memory.SearchById(mrn); });
+            long hotNs = nanosPerOp(lookups, () -> { for (String mrn : hotMrns) disk.SearchById(mrn); });
+            long coldNs = nanosPerOp(lookups, () -> { for (String mrn : coldMrns) disk.SearchById(mrn); });
+            long updateNs = nanosPerOp(lookups, () -> { for (String mrn : hotMrns) store.put((Patient) disk.SearchById(mrn)); });
+            System.out.printf("%-14s : in-memory %,d bytes, disk store %,d bytes (hot set %,d), load %,d ms, files %,d bytes%n",
+                    "Patient heap", memoryHeap, diskHeap, hotSet, loadMillis[0], fileBytes);
+            System.out.printf("%-14s : in-memory %,d ns, disk hot %,d ns, disk cold %,d ns, disk update %,d ns%n",
+                    "SearchById", memoryNs, hotNs, coldNs, updateNs);
+        }
+        Reference.reachabilityFence(memory);
+    }
+
+    // --- LAZY STARTUP: KEY-COLUMN INDEX vs FULL LOAD ---
+    private static void benchmarkLazyStartup(Path dir, int patientCount) throws Exception {
+        Path backendDir = Files.createDirectories(dir.resolve("lazy"));
+        try (StorageBackend backend = StorageBackends.create(CsvBackend.NAME, backendDir)) {
+            backend.snapshot(Patient.class, syntheticPatients(patientCount));
+            Path csv = backendDir.resolve("patient_data.csv");
+            long eager = bestOf(() -> backend.load(Patient.class, new PatientService().bulkLoader()));
+            long lazy = bestOf(() -> backend.loadDelta(Patient.class, new PatientService().lazyLoader(PatientRowIndex.scan(csv))));
+
+            PatientService eagerService = new PatientService();
+            long eagerHeap = retainedBytes(() -> {
+                backend.load(Patient.class, eagerService.bulkLoader());
+                return eagerService;
+            });
+            PatientService lazyService = new PatientService();
+            long lazyHeap = retainedBytes(() -> {
+                backend.loadDelta(Patient.class, lazyService.lazyLoader(PatientRowIndex.scan(csv)));
+                return lazyService;
+            });
+            int lookups = Math.min(10_000, patientCount);
+            java.util.Random random = new java.util.Random(7);
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) lazyService.SearchById("MRN" + random.nextInt(patientCount));
+            long firstAccess = (System.nanoTime() - start) / lookups;
+
+            System.out.printf("%-14s : eager %,d ms (%,d bytes), lazy %,d ms (%,d bytes), first SearchById %,d ns%n",
+                    "Startup", eager, eagerHeap, lazy, lazyHeap, firstAccess);
+            Reference.reachabilityFence(eagerService);
+        } finally {
+            for (File f : backendDir.toFile().listFiles()) f.delete();
+            backendDir.toFile().delete();
+        }
+    }
+
+    // --- ID GENERATION: UUID vs TIME-ORDERED BLOCKS ---
+    private static void benchmarkIdGenerator() throws Exception {
+        int perThread = 1_000_000;
+        for (int threads : new int[]{1, 4}) {
+            long uuid = nanosPerOp(perThread * threads, () -> generateConcurrently(threads, perThread, () -> java.util.UUID.randomUUID().toString()));
+            long id = nanosPerOp(perThread * threads, () -> generateConcurrently(threads, perThread, IdGenerator::generateId));
+            long mrn = nanosPerOp(perThread * threads, () -> generateConcurrently(threads, perThread, IdGenerator::generateMRN));
+            System.out.printf("%-14s : %d thread(s): UUID %,d ns, generateId %,d ns, generateMRN %,d ns%n",
+                    "ID generation", threads, uuid, id, mrn);
+        }
+    }
+
+    // --- DENSE KEYS: APPOINTMENT HEAP AND CALENDAR LOOKUP ---
+    private static void benchmarkDenseKeys(Path dir, int appointmentCount) throws Exception {
+        int doctorCount = Math.max(10, appointmentCount / 100);
+        Path appointmentCsv = dir.resolve("appointment_keys.csv");
+        CSVUtil.writeAppointmentsToCSV(syntheticAppointments(appointmentCount, doctorCount), appointmentCsv);
+
+        long keyed = retainedBytes(() -> CSVUtil.readAppointmentsFromCSV(appointmentCsv));
+        // Baseline: the string-id layout, where each parsed row owned its doctor and patient id strings
+        long stringIds = retainedBytes(() -> {
+            List<StringKeyedAppointment> rows = new ArrayList<>(appointmentCount);
+            for (Appointment a : CSVUtil.readAppointmentsFromCSV(appointmentCsv)) {
+                rows.add(new StringKeyedAppointment(a.getAppointmentId(), new String(a.getDoctorId()),
+                        new String(a.getPatientId()), a.getTimeSlot(), a.getStatus()));
+            }
+            return rows;
+        });
+        System.out.printf("%-14s : string ids %,d bytes (%,d per appointment), dense keys %,d bytes (%,d per appointment)%n",
+                "Appointments", stringIds, stringIds / appointmentCount, keyed, keyed / appointmentCount);
+
+        // Per-appointment calendar lookup: hashing the doctor id string vs indexing by its key
+        java.util.Map<String, Object> byId = new java.util.concurrent.ConcurrentHashMap<>();
+        java.util.concurrent.atomic.AtomicReferenceArray<Object> byKey =
+                new java.util.concurrent.atomic.AtomicReferenceArray<>(IdDictionary.DOCTORS.size() + 1);
+        String[] ids = new String[appointmentCount];
+        int[] keys = new int[appointmentCount];
+        for (int i = 0; i < appointmentCount; i++) {
+            ids[i] = new String("DOC" + (i % doctorCount));
+            keys[i] = IdDictionary.DOCTORS.keyOf(ids[i]);
+            byId.putIfAbsent(ids[i], ids[i]);
+            byKey.set(keys[i], ids[i]);
+        }
+        long map = nanosPerOp(appointmentCount, () -> {
+            Object last = null;
+            for (String id : ids) last = byId.get(id);
+            Reference.reachabilityFence(last);
+        });
+        long array = nanosPerOp(appointmentCount, () -> {
+            Object last = null;
+            for (int key : keys) last = byKey.get(key);
+            Reference.reachabilityFence(last);
+        });
+        System.out.printf("%-14s : by string id %,d ns, by dense key %,d ns%n", "Calendar get", map, array);
+    }
+
+    private record StringKeyedAppointment(String appointmentId, String doctorId, String patientId,
+                                          LocalDateTime timeSlot, AppointmentStatus status) {
+    }
+
+    // --- LOOKUP MISS: EXCEPTION vs OPTIONAL ---
+    private static void benchmarkLookupMiss() throws Exception {
+        com.airtribe.meditrack.service.DoctorService doctors = new com.airtribe.meditrack.service.DoctorService();
+        doctors.addDoctor(syntheticDoctors(1).get(0));
+        int lookups = 1_000_000;
+        // Baseline: what a miss cost when the exception filled in its stack trace
+        long stackful = nanosPerOp(lookups, () -> {
+            for (int i = 0; i < lookups; i++) {
+                try {
+                    doctors.SearchById("fever");
+                } catch (com.airtribe.meditrack.exception.DoctorNotFoundException e) {
+                    Reference.reachabilityFence(new Exception(e.getMessage()));
+                }
+            }
+        });
+        long stackless = nanosPerOp(lookups, () -> {
+            for (int i = 0; i < lookups; i++) {
+                try {
+                    doctors.SearchById("fever");
+                } catch (com.airtribe.meditrack.exception.DoctorNotFoundException e) {
+                    Reference.reachabilityFence(e);
+                }
+            }
+        });
+        long optional = nanosPerOp(lookups, () -> {
+            for (int i = 0; i < lookups; i++) Reference.reachabilityFence(doctors.findById("fever").orElse(null));
+        });
+        System.out.printf("%-14s : stack trace %,d ns, stackless %,d ns, Optional %,d ns%n",
+                "Doctor miss", stackful, stackless, optional);
+    }
+
+    // --- BULK VALIDATION: REGEX + EXCEPTIONS vs SCANNERS + REPORT ---
+    private static void benchmarkBulkValidation(int patientCount) throws Exception {
+        List<Patient> patients = syntheticPatients(patientCount);
+        // Baseline: the former validatePatient format checks, String.matches per field and a blood group set per call
+        long regex = bestOf(() -> {
+            for (Patient p : patients) {
+                if (!p.getContactNumber().matches("^[0-9]{10,15}$") || !p.getEmail().matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")
+                        || !p.getEmergencyContact().matches("^[0-9]{10,15}$")
+                        || !java.util.Set.of("A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-").contains(p.getBloodGroup()))
+                    throw new IllegalStateException(p.getMrn());
+            }
+        });
+        long scanned = bestOf(() -> {
+            for (Patient p : patients) Validator.validatePatient(p);
+        });
+        com.airtribe.meditrack.util.ValidationReport report = new com.airtribe.meditrack.util.ValidationReport();
+        long bulk = bestOf(() -> Validator.validateAll(patients, Validator::checkPatient, report).throwIfInvalid());
+        System.out.printf("%-14s : regex %,d ms, scanners %,d ms, validateAll %,d ms (%d CPUs)%n", "Validation",
+                regex, scanned, bulk, Runtime.getRuntime().availableProcessors());
+    }
+
+    // --- SYMPTOM TRIAGE: contains() CHAIN vs AHO-CORASICK ---
+    private static void benchmarkSymptomMatcher() throws Exception {
+        String[] texts = {
+                "Severe chest pain radiating to the left arm with shortness of breath since this morning",
+                "Persistent itchy rash on both forearms after gardening",
+                "Child with ear pain and a runny nose, mild fever for two days",
+                "Recurring migraines and numbness in fingers",
+                "Patient reports general fatigue and would like a routine check-up"};
+        int rounds = 200_000;
+        SymptomMatcher matcher = SymptomMatcher.defaultMatcher();
+        long chain = nanosPerOp(rounds * texts.length, () -> {
+            for (int r = 0; r < rounds; r++) {
+                for (String text : texts) Reference.reachabilityFence(legacySymptomType(text));
+            }
+        });
+        long automaton = nanosPerOp(rounds * texts.length, () -> {
+            for (int r = 0; r < rounds; r++) {
+                for (String text : texts) Reference.reachabilityFence(matcher.rank(text));
+            }
+        });
+        System.out.printf("%-14s : contains chain %,d ns, Aho-Corasick (%d keywords) %,d ns per text%n",
+                "Symptom triage", chain, matcher.size(), automaton);
+    }
+
+    // The former AIHelper.mapSymptomToType
+    private static DoctorType legacySymptomType(String symptom) {
+        symptom = symptom.toLowerCase();
+        if (symptom.contains("heart") || symptom.contains("cardio")) return DoctorType.CARDIOLOGIST;
+        if (symptom.contains("brain") || symptom.contains("neuro")) return DoctorType.NEUROLOGIST;
+        if (symptom.contains("tooth") || symptom.contains("dental")) return DoctorType.DENTIST;
+        if (symptom.contains("skin") || symptom.contains("rash")) return DoctorType.DERMATOLOGIST;
+        if (symptom.contains("stomach") || symptom.contains("digestion") || symptom.contains("gut")) return DoctorType.GASTROENTEROLOGIST;
+        if (symptom.contains("lung") || symptom.contains("breath") || symptom.contains("respiratory")) return DoctorType.PULMONOLOGIST;
+        if (symptom.contains("ear") || symptom.contains("nose") || symptom.contains("throat")) return DoctorType.OTOLARYNGOLOGIST;
+        if (symptom.contains("urine") || symptom.contains("kidney") || symptom.contains("bladder")) return DoctorType.UROLOGIST;
+        if (symptom.contains("jaw") || symptom.contains("face") || symptom.contains("maxillofacial")) return DoctorType.MAXILLOFACIAL;
+        if (symptom.contains("joint") || symptom.contains("arthritis") || symptom.contains("rheumatism")) return DoctorType.RHEUMATOLOGIST;
+        if (symptom.contains("blood") || symptom.contains("lab") || symptom.contains("test")) return DoctorType.PATHOLOGIST;
+        return DoctorType.GENERAL_PRACTITIONER;
+    }
+
+    // --- DOCTOR SELECTION: FIRST OF SPECIALTY vs LOAD-AWARE POLICIES ---
+    private static void benchmarkDoctorSelection() throws Exception {
+        List<Doctor> doctors = syntheticDoctors(DoctorType.values().length * 40);
+        Patient patient = syntheticPatients(1).get(0);
+        patient.setMrn("MRNBENCH01");
+        // About a week of a three-day-a-week doctor's slots; the first doctor alone can still take them all
+        int bookings = 40;
+        java.io.PrintStream out = System.out;
+        String[] names = {"first doctor", "ROUND_ROBIN", "LEAST_LOADED", "EARLIEST_SLOT"};
+        for (String name : names) {
+            long best = Long.MAX_VALUE;
+            int busiest = 0;
+            for (int round = 0; round <= ROUNDS; round++) {
+                com.airtribe.meditrack.service.DoctorService doctorService = new com.airtribe.meditrack.service.DoctorService();
+                PatientService patientService = new PatientService();
+                doctors.forEach(doctorService::addDoctor);
+                patientService.addPatient(patient);
+                com.airtribe.meditrack.service.AppointmentService service =
+                        new com.airtribe.meditrack.service.AppointmentService(doctorService, patientService);
+                if (name.equals(names[0])) service.setDoctorSelection((type, candidates) -> candidates.get(0));
+                else service.setDoctorSelection(com.airtribe.meditrack.util.DoctorLoadTracker.Policy.valueOf(name));
+                System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+                long start = System.nanoTime();
+                try {
+                    for (int i = 0; i < bookings; i++) service.bookAppointment("itchy skin rash", patient.getMrn(), null);
+                } finally {
+                    System.setOut(out);
+                }
+                // Round 0 is the warm-up
+                if (round > 0) best = Math.min(best, (System.nanoTime() - start) / bookings);
+                busiest = 0;
+                for (Doctor d : doctors) {
+                    busiest = Math.max(busiest, doctorService.getLoadTracker().bookings(IdDictionary.DOCTORS.keyOf(d.getId())));
+                }
+            }
+            System.out.printf("%-14s : %-13s %,d ns per booking, busiest doctor %d of %d bookings%n",
+                    "Symptom booking", name, best, busiest, bookings);
+        }
+    }
+
+    // --- SYMPTOM TRIAGE: KEYWORD RULES vs N-GRAM CLASSIFIER (5-FOLD CROSS-VALIDATION) ---
+    private static void benchmarkSymptomClassifier() throws Exception {
+        List<Map.Entry<DoctorType, String>> examples = new ArrayList<>();
+        try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(
+                BenchmarkRunner.class.getResourceAsStream(com.airtribe.meditrack.constants.Constants.SYMPTOM_TRAINING_RESOURCE),
+                java.nio.charset.StandardCharsets.UTF_8))) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                int comma = line.indexOf(',');
+                examples.add(Map.entry(DoctorType.valueOf(line.substring(0, comma)), line.substring(comma + 1)));
+            }
+        }
+        double threshold = com.airtribe.meditrack.constants.Constants.SYMPTOM_CLASSIFIER_MIN_CONFIDENCE;
+        SymptomMatcher matcher = SymptomMatcher.defaultMatcher();
+        int folds = 5, rules = 0, model = 0, hybrid = 0;
+        for (int fold = 0; fold < folds; fold++) {
+            List<Map.Entry<DoctorType, String>> train = new ArrayList<>();
+            List<Map.Entry<DoctorType, String>> test = new ArrayList<>();
+            for (int i = 0; i < examples.size(); i++) (i % folds == fold ? test : train).add(examples.get(i));
+            SymptomClassifier classifier = SymptomClassifier.train(train);
+            for (Map.Entry<DoctorType, String> example : test) {
+                List<DoctorType> ranked = matcher.rank(example.getValue());
+                SymptomClassifier.Prediction guess = classifier.classify(example.getValue());
+                DoctorType byRules = ranked.isEmpty() ? DoctorType.GENERAL_PRACTITIONER : ranked.get(0);
+                DoctorType byBoth = !ranked.isEmpty() ? ranked.get(0)
+                        : guess.confidence() >= threshold ? guess.type() : DoctorType.GENERAL_PRACTITIONER;
+                if (byRules == example.getKey()) rules++;
+                if (guess.type() == example.getKey()) model++;
+                if (byBoth == example.getKey()) hybrid++;
+            }
+        }
+        System.out.printf("%-14s : %d held-out examples, keywords %.1f%%, classifier %.1f%%, keywords then classifier %.1f%%%n",
+                "Triage accuracy", examples.size(), 100.0 * rules / examples.size(), 100.0 * model / examples.size(),
+                100.0 * hybrid / examples.size());
+
+        String[] texts = {
+                "Severe chest pain radiating to the left arm with shortness of breath since this morning",
+                "Persistent itchy rash on both forearms after gardening",
+                "Child with ear pain and a runny nose, mild fever for two days",
+                "Recurring migraines and numbness in fingers",
+                "Patient reports general fatigue and would like a routine check-up"};
+        int rounds = 200_000;
+        SymptomClassifier classifier = SymptomClassifier.defaultClassifier();
+        long keywords = nanosPerOp(rounds * texts.length, () -> {
+            for (int r = 0; r < rounds; r++) {
+                for (String text : texts) Reference.reachabilityFence(matcher.rank(text));
+            }
+        });
+        long classified = nanosPerOp(rounds * texts.length, () -> {
+            for (int r = 0; r < rounds; r++) {
+                for (String text : texts) Reference.reachabilityFence(classifier.classify(text));
+            }
+        });
+        System.out.printf("%-14s : keywords %,d ns, classifier %,d ns per text%n", "Triage latency", keywords, classified);
+    }
+
+    // --- SLOT SEARCH: LocalDateTime STEPPING vs INT SLOT EPOCH ---
+    private static void benchmarkSlotSearch() throws Exception {
+        Doctor doctor = syntheticDoctors(1).get(0);
+        doctor.setAvailableDays(List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                DayOfWeek.THURSDAY, DayOfWeek.FRIDAY));
+        doctor.setAvailableFrom(LocalTime.of(9, 0));
+        doctor.setAvailableTo(LocalTime.of(17, 0));
+        DoctorCalendar calendar = new DoctorCalendar();
+        calendar.syncWorkingHours(doctor);
+        // Requests from Friday afternoon on, off the slot grid, so most searches have to skip a weekend
+        LocalDateTime friday = LocalDateTime.now().plusWeeks(1).with(java.time.temporal.TemporalAdjusters.next(DayOfWeek.FRIDAY));
+        LocalDateTime[] requests = new LocalDateTime[64];
+        for (int i = 0; i < requests.length; i++) requests[i] = friday.withHour(15).withMinute(7).plusMinutes(i * 47L);
+        int rounds = 20_000, searches = rounds * requests.length;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        long[] garbage = new long[2];
+        long stepping = nanosPerOp(searches, () -> {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int r = 0; r < rounds; r++) {
+                for (LocalDateTime request : requests) Reference.reachabilityFence(legacyNextSlot(doctor, request));
+            }
+            garbage[0] = (threads.getCurrentThreadAllocatedBytes() - before) / searches;
+        });
+        long slots = nanosPerOp(searches, () -> {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            long sum = 0;
+            for (int r = 0; r < rounds; r++) {
+                for (LocalDateTime request : requests) {
+                    sum += calendar.nextFreeSlot(Math.max(SlotTime.roundUp(request), SlotTime.next()), 48 * 10);
+                }
+            }
+            garbage[1] = (threads.getCurrentThreadAllocatedBytes() - before) / searches;
+            if (sum == 0) System.out.print("");
+        });
+        System.out.printf("%-14s : LocalDateTime stepping %,d ns (%,d B), slot epoch + bitmap %,d ns (%,d B) per search%n",
+                "Slot search", stepping, garbage[0], slots, garbage[1]);
+    }
+
+    // The former round-then-step search: a LocalDateTime per slot, and the clock read on every step
+    private static LocalDateTime legacyNextSlot(Doctor doctor, LocalDateTime requested) {
+        LocalDateTime t = requested.truncatedTo(java.time.temporal.ChronoUnit.MINUTES);
+        if (t.getMinute() != 0 && t.getMinute() != 30) t = t.getMinute() < 30 ? t.withMinute(30) : t.plusHours(1).withMinute(0);
+        for (int i = 0; i < 48 * 10; i++, t = t.plusMinutes(30)) {
+            if (t.isBefore(LocalDateTime.now())) continue;
+            if (!doctor.getAvailableDays().contains(t.getDayOfWeek())) continue;
+            LocalTime time = t.toLocalTime();
+            if (!time.isBefore(doctor.getAvailableFrom()) && !time.plusMinutes(30).isAfter(doctor.getAvailableTo())) return t;
+        }
+        return null;
+    }
+
+    // --- DURABLE APPENDS: FSYNC PER ENTRY vs GROUP COMMIT (16 CONCURRENT WRITERS) ---
+    private static void benchmarkDurableAppends(Path dir) throws Exception {
+        int threads = 16, perThread = 64;
+        for (WriteAheadLog.FsyncPolicy policy : List.of(WriteAheadLog.FsyncPolicy.PER_OP, WriteAheadLog.FsyncPolicy.GROUP_COMMIT)) {
+            Path file = dir.resolve("bench-" + policy + ".wal");
+            long ms;
+            try (WriteAheadLog log = WriteAheadLog.open(file, policy, 200)) {
+                ms = bestOf(() -> generateConcurrently(threads, perThread, () -> {
+                    try {
+                        log.appendUpsert("APT", "DOC004", "MRN9999", "CONFIRMED");
+                    } catch (java.io.IOException e) {
+                        throw new java.io.UncheckedIOException(e);
+                    }
+                    return "";
+                }));
+            }
+            Files.deleteIfExists(file);
+            System.out.printf("%-14s : %-12s %,d durable entries in %,d ms (%,d/s)%n",
+                    "Durable append", policy, threads * perThread, ms, threads * perThread * 1000L / Math.max(1, ms));
+        }
+    }
+
+    private static void generateConcurrently(int threads, int perThread, java.util.function.Supplier<String> generator)
+            throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                String last = null;
+                for (int i = 0; i < perThread; i++) last = generator.get();
+                Reference.reachabilityFence(last);
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) worker.join();
+    }
+
+    private static long nanosPerOp(int ops, BenchmarkTask task) throws Exception {
+        task.run(); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, (System.nanoTime() - start) / ops);
+        }
+        return best;
+    }
+
+    private static final class CountingSink<T> implements EntitySink<T> {
+        private final AtomicLong rows = new AtomicLong();
+
+        @Override
+        public void upsert(T entity) {
+            rows.incrementAndGet();
+        }
+
+        @Override
+        public void delete(String key) {
+            rows.decrementAndGet();
+        }
+    }
+
+    private static long perSecond(int rows, long millis) {
+        return rows * 1000L / Math.max(1, millis);
+    }
+
+    private static Patient unpooledCopy(Patient p) {
+        p.setAddress(new String(p.getAddress()));
+        p.setBloodGroup(new String(p.getBloodGroup()));
+        p.setKnownAllergies(unpooledList(p.getKnownAllergies()));
+        p.setChronicConditions(unpooledList(p.getChronicConditions()));
+        p.setCurrentMedications(unpooledList(p.getCurrentMedications()));
+        return p;
+    }
+
+    // What parseList used to build: a fresh ArrayList when empty, else Arrays.asList over fresh strings
+    private static List<String> unpooledList(List<String> values) {
+        if (values.isEmpty()) return new ArrayList<>();
+        return Arrays.asList(values.stream().map(String::new).toArray(String[]::new));
+    }
+
+    private static void clearPools() {
+        StringPool.CODES.clear();
+        StringPool.ADDRESSES.clear();
+    }
+
+    // Heap still in use after the built object graph is created and everything else is collected
+    private static long retainedBytes(HeapTask task) throws Exception {
+        long before = usedHeapAfterGc();
+        Object kept = task.build();
+        long after = usedHeapAfterGc();
+        Reference.reachabilityFence(kept);
+        return after - before;
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // =================================================================
+    // HELPER METHODS
+    // =================================================================
+    private static List<Doctor> syntheticDoctors(int count) {
+        List<Doctor> doctors = new ArrayList<>(count);
+        DoctorType[] types = DoctorType.values();
+        for (int i = 0; i < count; i++) {
+            doctors.add(Doctor.builder()
+                    .id("DOC" + i).name("Dr. Bench " + i).age(30 + i % 30).gender(i % 2 == 0 ? GENDER.MALE : GENDER.FEMALE)
+                    .address("Hospital Block " + (i % 20)).contactNumber("98" + String.format("%08d", i)).email("doc" + i + "@bench.com")
+                    .doctorType(types[i % types.length]).qualification(i % 3 == 0 ? "MD" : "MBBS").yearsOfExperience(i % 25)
+                    .opdRoom("OPD-" + (i % 50)).availableFrom(LocalTime.of(9, 0)).availableTo(LocalTime.of(17, 0))
+                    .availableDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY))
+                    .build());
+        }
+        return doctors;
+    }
+
+    private static List<Patient> syntheticPatients(int count) {
+        List<Patient> patients = new ArrayList<>(count);
+        String[] bloodGroups = {"A+", "A-", "B+", "B-", "O+", "O-", "AB+", "AB-"};
+        String[] allergies = {"Dust", "Pollen", "Peanuts", "Penicillin"};
+        String[] conditions = {"Hypertension", "Diabetes", "Asthma"};
+        String[] medications = {"Metformin", "Amlodipine", "Salbutamol"};
+        for (int i = 0; i < count; i++) {
+            patients.add(Patient.builder()
+                    .id("P" + i).name("Patient " + i).age(1 + i % 90).gender(i % 2 == 0 ? GENDER.FEMALE : GENDER.MALE)
+                    .address((i % 20_000) + " Main Street, City " + (i % 100)).contactNumber("97" + String.format("%08d", i))
+                    .email("patient" + i + "@bench.com").mrn("MRN" + i).emergencyContact("9900000000")
+                    .bloodGroup(bloodGroups[i % bloodGroups.length])
+                    .knownAllergies(i % 4 == 0 ? List.of(allergies[i % allergies.length]) : new ArrayList<>())
+                    .chronicConditions(i % 10 == 0 ? List.of(conditions[i % conditions.length]) : new ArrayList<>())
+                    .currentMedications(i % 10 == 0 ? List.of(medications[i % medications.length]) : new ArrayList<>())
+                    .build());
+        }
+        return patients;
+    }
+
+    private static List<Appointment> syntheticAppointments(int count, int doctorCount) {
+        List<Appointment> appointments = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        for (int i = 0; i < count; i++) {
+            appointments.add(Appointment.builder()
+                    .appointmentId("APP" + i).doctorId("DOC" + (i % doctorCount)).patientId("MRN" + i)
+                    .timeSlot(start.plusMinutes(30L * (i / doctorCount)))
+                    .status(i % 7 == 0 ? AppointmentStatus.CANCELLED : AppointmentStatus.CONFIRMED)
+                    .build());
+        }
+        return appointments;
+    }
+
+    private static long bestOf(BenchmarkTask task) throws Exception {
+        task.run(); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+        }
+        return best;
+    }
+
+    @FunctionalInterface
+    interface BenchmarkTask {
+        void run() throws Exception;
+    }
+
+    @FunctionalInterface
+    interface HeapTask {
+        Object build() throws Exception;
+    }
+}
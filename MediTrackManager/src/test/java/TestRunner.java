@@ -8,15 +8,39 @@ import com.airtribe.meditrack.enums.GENDER;
 import com.airtribe.meditrack.service.AppointmentService;
 import com.airtribe.meditrack.service.DoctorService;
 import com.airtribe.meditrack.service.PatientService;
+import com.airtribe.meditrack.util.BinarySnapshot;
+import com.airtribe.meditrack.util.ChangeTracker;
+import com.airtribe.meditrack.util.CSVUtil;
 import com.airtribe.meditrack.util.DataStore;
+import com.airtribe.meditrack.util.DateUtil;
+import com.airtribe.meditrack.util.DoctorCalendar;
+import com.airtribe.meditrack.util.DiskPatientStore;
+import com.airtribe.meditrack.util.FlushScheduler;
+import com.airtribe.meditrack.util.IdDictionary;
+import com.airtribe.meditrack.util.IdGenerator;
+import com.airtribe.meditrack.util.ParallelCSVLoader;
+import com.airtribe.meditrack.util.PatientRowIndex;
+import com.airtribe.meditrack.util.SafeFileWriter;
+import com.airtribe.meditrack.util.SlotTime;
+import com.airtribe.meditrack.util.StringPool;
+import com.airtribe.meditrack.util.SymptomClassifier;
+import com.airtribe.meditrack.util.SymptomMatcher;
 import com.airtribe.meditrack.util.Validator;
 
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * COMPREHENSIVE MANUAL TEST SUITE
@@ -48,6 +72,7 @@ public class TestRunner {
         runTest("MRN Format (Valid)", () -> Validator.isValidMRN("MRN123"));
         runTest("MRN Format (Invalid)", () -> !Validator.isValidMRN("123_MRN"));
         runTest("MRN Format (Invalid Length)", () -> !Validator.isValidMRN("A"));
+        runTest("ID Generator (Unique, Time-Ordered)", TestRunner::testIdGenerator);
 
         // 2. DOCTOR MANAGEMENT
         System.out.println("\n[2] --- DOCTOR SERVICE TESTS ---");
@@ -55,6 +80,9 @@ public class TestRunner {
         runTest("Duplicate Doctor Check (Simulated)", TestRunner::testDuplicateDoctorProtection);
         runTest("Search Doctor (By ID)", TestRunner::testSearchDoctorById);
         runTest("Doctor Availability Logic (Time)", TestRunner::testDoctorTimeAvailability);
+        runTest("Doctors By Type (Read-Only Bucket)", TestRunner::testDoctorsByType);
+        runTest("Doctor Id Index (Collision, Re-Index)", TestRunner::testDoctorIdIndex);
+        runTest("Patient MRN Index (Clash)", TestRunner::testPatientMrnIndex);
 
         // 3. PATIENT MANAGEMENT
         System.out.println("\n[3] --- PATIENT SERVICE TESTS ---");
@@ -70,11 +98,35 @@ public class TestRunner {
         runTest("Booking Outside Working Hours", TestRunner::testBookingOutsideHours);
         runTest("Booking on Weekend (Day Off)", TestRunner::testBookingDayOff);
         runTest("Smart Booking (Symptom Matching)", TestRunner::testSymptomMatching);
+        runTest("Cancel Frees Slot", TestRunner::testCancelFreesSlot);
+        runTest("Concurrent Cancel (Single Release)", TestRunner::testConcurrentCancel);
+        runTest("Concurrent Booking (No Double-Booking)", TestRunner::testConcurrentBookingStress);
+        runTest("Auto-Match By Type (Earliest Doctor)", TestRunner::testBookByTypePicksEarliest);
+        runTest("Doctor Calendar (Bitmap Word Edges)", TestRunner::testDoctorCalendar);
 
         // 5. FILE PERSISTENCE
         System.out.println("\n[5] --- FILE I/O PERSISTENCE TESTS ---");
         runTest("Save Data to CSV", TestRunner::testSaveToCSV);
         runTest("Load Data from CSV", TestRunner::testLoadFromCSV);
+        runTest("Journal Replay (Write-Ahead Log)", TestRunner::testJournalReplay);
+        runTest("Durable Bookings (Group Commit)", TestRunner::testDurableGroupCommitBookings);
+        runTest("Parallel CSV Loader (Quoted, Chunked)", TestRunner::testParallelCsvLoader);
+        runTest("Binary Snapshot Round Trip", TestRunner::testBinarySnapshotRoundTrip);
+        runTest("Incremental Flush (Dirty Tracking)", TestRunner::testIncrementalFlush);
+        runTest("Atomic Snapshot Write (Crash Mid-Write)", TestRunner::testAtomicSnapshotWrite);
+        runTest("Flush Scheduler (Coalesced Requests)", TestRunner::testFlushSchedulerCoalesces);
+        runTest("Streaming Export/Import (Constant Memory)", TestRunner::testStreamingExportImport);
+        runTest("String Pool (Shared, Bounded, Immutable)", TestRunner::testStringPool);
+        runTest("Storage Backends (CSV, Binary, JSON Lines)", TestRunner::testStorageBackends);
+        runTest("Disk Patient Store (Bounded Hot Set)", TestRunner::testDiskPatientStore);
+        runTest("Lazy Patient Hydration (Key Columns Only)", TestRunner::testLazyPatientHydration);
+        runTest("Id Dictionary (Dense Keys)", TestRunner::testIdDictionary);
+        runTest("Optional Finders (Stackless Misses)", TestRunner::testOptionalFinders);
+        runTest("Bulk Validation (Scanners, Report)", TestRunner::testBulkValidation);
+        runTest("Symptom Matcher (Keywords, Word Boundaries)", TestRunner::testSymptomMatcher);
+        runTest("Doctor Selection (Round Robin, Load, Slot)", TestRunner::testDoctorSelection);
+        runTest("Symptom Classifier (N-gram Naive Bayes)", TestRunner::testSymptomClassifier);
+        runTest("Slot Time (Int Slot Epoch)", TestRunner::testSlotTime);
 
         System.out.println("\n==================================================");
         System.out.println("   END OF TESTS ");
@@ -85,6 +137,43 @@ public class TestRunner {
     // TEST LOGIC IMPLEMENTATIONS
     // =================================================================
 
+    // Several threads at once, more MRNs than one second's sequence holds: every value is unique and valid,
+    // and each thread sees its values in increasing (sorted) order
+    private static boolean testIdGenerator() {
+        int threads = 4;
+        int perThread = 20_000;
+        Set<String> ids = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        Set<String> mrns = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        java.util.concurrent.atomic.AtomicBoolean ordered = new java.util.concurrent.atomic.AtomicBoolean(true);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                String lastId = "";
+                String lastMrn = "";
+                for (int i = 0; i < perThread; i++) {
+                    String id = IdGenerator.generateId();
+                    String mrn = IdGenerator.generateMRN();
+                    if (id.compareTo(lastId) <= 0 || mrn.compareTo(lastMrn) <= 0 || !Validator.isValidMRN(mrn)) ordered.set(false);
+                    ids.add(id);
+                    mrns.add(mrn);
+                    lastId = id;
+                    lastMrn = mrn;
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        String earlier = IdGenerator.generateId();
+        return ordered.get() && ids.size() == threads * perThread && mrns.size() == threads * perThread
+                && IdGenerator.generateId().compareTo(earlier) > 0;
+    }
+
     // --- DOCTOR TESTS ---
     private static boolean testAddDoctor() {
         try {
@@ -140,6 +229,106 @@ public class TestRunner {
         } catch (Exception e) { return false; }
     }
 
+    private static boolean testDoctorsByType() {
+        List<Doctor> gps = doctorService.getDoctorsByType(DoctorType.GENERAL_PRACTITIONER);
+        boolean found = gps.stream().anyMatch(d -> d.getId().equals("DOC0001"));
+        try {
+            gps.clear();
+            return false; // Bucket view must not be writable
+        } catch (UnsupportedOperationException e) {
+            return found && doctorService.getDoctorsByType(DoctorType.UROLOGIST).isEmpty();
+        }
+    }
+
+    private static boolean testDoctorIdIndex() {
+        try {
+            DoctorService doctors = new DoctorService();
+            Doctor first = indexedDoctor("DOCPK01", DoctorType.DENTIST);
+            Doctor second = indexedDoctor("DOCPK02", DoctorType.DENTIST);
+            doctors.addDoctor(first);
+            doctors.addDoctor(second);
+            doctors.addDoctor(first); // same instance again: a no-op, not a clash
+
+            // Another doctor may not take an id that is already indexed, by add or by update
+            boolean addRejected = false, updateRejected = false;
+            try {
+                doctors.addDoctor(indexedDoctor("DOCPK01", DoctorType.UROLOGIST));
+            } catch (com.airtribe.meditrack.exception.InvalidDataException expected) {
+                addRejected = true;
+            }
+            try {
+                doctors.updateDoctor("DOCPK02", indexedDoctor("DOCPK01", DoctorType.DENTIST));
+            } catch (com.airtribe.meditrack.exception.InvalidDataException expected) {
+                updateRejected = true;
+            }
+            boolean unchanged = doctors.getDoctors().size() == 2 && second.getId().equals("DOCPK02")
+                    && doctors.findById("DOCPK01").orElse(null) == first && doctors.findById("DOCPK02").orElse(null) == second;
+
+            // A new id and specialty re-index the doctor; keeping its own id is not a clash
+            doctors.updateDoctor("DOCPK02", indexedDoctor("DOCPK03", DoctorType.UROLOGIST));
+            doctors.updateDoctor("DOCPK03", indexedDoctor("DOCPK03", DoctorType.UROLOGIST));
+            boolean reindexed = doctors.findById("DOCPK03").orElse(null) == second && doctors.findById("DOCPK02").isEmpty()
+                    && doctors.getDoctorsByType(DoctorType.UROLOGIST).equals(List.of(second))
+                    && doctors.getDoctorsByType(DoctorType.DENTIST).equals(List.of(first));
+            return addRejected && updateRejected && unchanged && reindexed;
+        } catch (Exception e) { e.printStackTrace(); return false; }
+    }
+
+    private static Doctor indexedDoctor(String id, DoctorType type) {
+        return Doctor.builder().id(id).name("Dr. " + id).age(45).gender(GENDER.MALE).address("Clinic")
+                .contactNumber("5551234567").email(id.toLowerCase() + "@test.com").doctorType(type)
+                .qualification("MD").yearsOfExperience(12).opdRoom("710")
+                .availableFrom(LocalTime.of(9, 0)).availableTo(LocalTime.of(17, 0)).build();
+    }
+
+    private static boolean testPatientMrnIndex() {
+        java.nio.file.Path dir = null;
+        try {
+            // MRNs match case-insensitively, so a differently cased duplicate is still a clash
+            PatientService patients = new PatientService();
+            Patient first = indexedPatient("MRNPK01", "First Holder");
+            patients.addPatient(first);
+            patients.addPatient(first); // same instance again: not a clash
+            boolean memoryRejected = false;
+            try {
+                patients.addPatient(indexedPatient("mrnpk01", "Second Holder"));
+            } catch (com.airtribe.meditrack.exception.InvalidDataException expected) {
+                memoryRejected = true;
+            }
+            boolean memoryKept = patients.patientCount() == 1 && patients.SearchById("MRNPK01") == first;
+
+            // The disk store refuses to overwrite a stored MRN the same way
+            dir = java.nio.file.Files.createTempDirectory("meditrack-mrn");
+            try (DiskPatientStore store = new DiskPatientStore(dir.resolve("patients"), 10)) {
+                PatientService disk = new PatientService();
+                disk.useDiskStore(store);
+                disk.addPatient(indexedPatient("MRNPK02", "Disk Holder"));
+                boolean diskRejected = false;
+                try {
+                    disk.addPatient(indexedPatient("MRNPK02", "Disk Intruder"));
+                } catch (com.airtribe.meditrack.exception.InvalidDataException expected) {
+                    diskRejected = true;
+                }
+                return memoryRejected && memoryKept && diskRejected && store.size() == 1
+                        && store.get("MRNPK02").getName().equals("Disk Holder");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (dir != null) {
+                for (java.io.File f : dir.toFile().listFiles()) f.delete();
+                dir.toFile().delete();
+            }
+        }
+    }
+
+    private static Patient indexedPatient(String mrn, String name) {
+        return Patient.builder().id("P" + mrn).name(name).age(40).gender(GENDER.FEMALE).address("Ward 3")
+                .contactNumber("9600000000").email("pk@test.com").mrn(mrn).emergencyContact("9900000000").bloodGroup("A+")
+                .knownAllergies(List.of()).chronicConditions(List.of()).currentMedications(List.of()).build();
+    }
+
     // --- PATIENT TESTS ---
     private static boolean testAddPatient() {
         try {
@@ -267,7 +456,7 @@ public class TestRunner {
 
     private static boolean testSymptomMatching() {
         try {
-            // "Chest pain" -> Should find A Cardiologist
+            // "Chest pain" -> Should find A Cardiologist (no keyword matches; the classifier places it)
             Appointment app = appointmentService.bookAppointment("Chest pain", "MRN9999", null);
 
             String doctorId = app.getDoctorId();
@@ -280,7 +469,7 @@ public class TestRunner {
                 System.out.println("   [DEBUG] Doctor ID " + doctorId + " not found!");
             }
 
-            return d != null && d.getDoctorType() == DoctorType.GENERAL_PRACTITIONER;
+            return d != null && d.getDoctorType() == DoctorType.CARDIOLOGIST;
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -289,6 +478,157 @@ public class TestRunner {
 
 
 
+    private static boolean testCancelFreesSlot() {
+        try {
+            // Next Monday 11:00 AM for DOC002 (Dr. Heart works Mondays only)
+            LocalDateTime slot = LocalDateTime.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY))
+                    .withHour(11).withMinute(0).withSecond(0).withNano(0);
+            Appointment first = appointmentService.bookAppointment("DOC002", "MRN9999", slot);
+            appointmentService.cancelAppointment(first.getAppointmentId());
+
+            // The cancelled slot must be bookable again at the exact same time
+            Appointment second = appointmentService.bookAppointment("DOC002", "MRN9999", slot);
+            return first.getStatus() == AppointmentStatus.CANCELLED && second.getTimeSlot().isEqual(slot);
+        } catch (Exception e) { e.printStackTrace(); return false; }
+    }
+
+    private static boolean testConcurrentCancel() {
+        try {
+            // Next Monday 12:00 PM for DOC002; sixteen threads cancel the same booking at once
+            LocalDateTime slot = LocalDateTime.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY))
+                    .withHour(12).withMinute(0).withSecond(0).withNano(0);
+            Appointment booked = appointmentService.bookAppointment("DOC002", "MRN9999", slot);
+            int before = doctorService.getLoadTracker().bookings(booked.getDoctorKey());
+
+            int threads = 16;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Appointment>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        return appointmentService.cancelAppointment(booked.getAppointmentId());
+                    }));
+                }
+                start.countDown();
+                for (Future<Appointment> f : results) f.get();
+            } finally {
+                pool.shutdownNow();
+            }
+            // Released once: the load count drops by one and the slot takes exactly one new booking
+            boolean releasedOnce = doctorService.getLoadTracker().bookings(booked.getDoctorKey()) == before - 1;
+            Appointment rebooked = appointmentService.bookAppointment("DOC002", "MRN9999", slot);
+            Appointment next = appointmentService.bookAppointment("DOC002", "MRN9999", slot);
+            return booked.getStatus() == AppointmentStatus.CANCELLED && releasedOnce
+                    && rebooked.getTimeSlot().isEqual(slot) && next.getTimeSlot().isAfter(slot);
+        } catch (Exception e) { e.printStackTrace(); return false; }
+    }
+
+    private static boolean testConcurrentBookingStress() {
+        try {
+            // DOC003 - Dr. Busy works every day 09:00-17:00, giving 16 slots a day
+            Doctor busy = Doctor.builder()
+                    .id("DOC003")
+                    .name("Dr. Busy")
+                    .age(38).gender(GENDER.FEMALE).address("Hosp B").contactNumber("5550001111").email("b@b.com")
+                    .doctorType(DoctorType.DENTIST).qualification("BDS").yearsOfExperience(8).opdRoom("303")
+                    .availableDays(Arrays.asList(DayOfWeek.values())).availableFrom(LocalTime.of(9, 0)).availableTo(LocalTime.of(17, 0))
+                    .build();
+            doctorService.addDoctor(busy);
+
+            int threads = 16;
+            int bookingsPerThread = 8;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<List<Appointment>>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        List<Appointment> booked = new ArrayList<>();
+                        for (int i = 0; i < bookingsPerThread; i++) {
+                            booked.add(appointmentService.bookAppointment("DOC003", "MRN9999", null));
+                        }
+                        return booked;
+                    }));
+                }
+                start.countDown();
+                Set<LocalDateTime> slots = new HashSet<>();
+                int total = 0;
+                for (Future<List<Appointment>> f : results) {
+                    for (Appointment a : f.get()) {
+                        total++;
+                        slots.add(a.getTimeSlot());
+                    }
+                }
+
+                // Every booking must have landed on its own slot
+                return total == threads * bookingsPerThread && slots.size() == total;
+            } finally {
+                pool.shutdownNow();
+            }
+        } catch (Exception e) { e.printStackTrace(); return false; }
+    }
+
+    private static boolean testBookByTypePicksEarliest() {
+        try {
+            // DOC004 - Dr. Night, a second dentist free around the clock while DOC003 is booked out
+            Doctor night = Doctor.builder()
+                    .id("DOC004")
+                    .name("Dr. Night")
+                    .age(41).gender(GENDER.MALE).address("Hosp C").contactNumber("5550002222").email("n@n.com")
+                    .doctorType(DoctorType.DENTIST).qualification("BDS").yearsOfExperience(12).opdRoom("404")
+                    .availableDays(Arrays.asList(DayOfWeek.values())).availableFrom(LocalTime.MIN).availableTo(LocalTime.MAX)
+                    .build();
+            doctorService.addDoctor(night);
+
+            Appointment app = appointmentService.bookAppointmentByType(DoctorType.DENTIST, "MRN9999", null);
+            return app.getDoctorId().equals("DOC004") && app.getTimeSlot().isAfter(LocalDateTime.now());
+        } catch (Exception e) { e.printStackTrace(); return false; }
+    }
+
+    private static boolean testDoctorCalendar() {
+        try {
+            // Round-the-clock doctor: every slot is working, so only the occupied bitmap decides
+            Doctor allHours = Doctor.builder().id("DOCCAL1").availableDays(Arrays.asList(DayOfWeek.values()))
+                    .availableFrom(LocalTime.MIN).availableTo(LocalTime.MAX).build();
+            DoctorCalendar calendar = new DoctorCalendar();
+            calendar.syncWorkingHours(allHours);
+            // The bitmap starts at today's midnight, so today + 63/64 straddle its first word boundary
+            int today = SlotTime.of(LocalDateTime.now());
+            today -= SlotTime.slotOfDay(today);
+
+            calendar.occupy(today + 63);
+            calendar.occupy(today + 64);
+            boolean acrossWords = calendar.nextFreeSlot(today + 63, 10) == today + 65
+                    && calendar.isOccupied(today + 63) && calendar.isOccupied(today + 64) && !calendar.isOccupied(today + 65);
+            // The window is exclusive at its end, whether the end falls inside a word or not
+            boolean windowEdge = calendar.nextFreeSlot(today + 63, 2) == -1 && calendar.nextFreeSlot(today + 63, 3) == today + 65;
+            // Well past the initial capacity, the bitmap grows; before it, slots are history and never stored
+            calendar.occupy(today + 1000);
+            boolean grown = calendar.isOccupied(today + 1000) && calendar.nextFreeSlot(today + 1000, 1) == -1;
+            calendar.occupy(today - 1);
+            boolean history = !calendar.isOccupied(today - 1);
+            calendar.release(today + 64);
+            calendar.release(today + 1000);
+            boolean released = calendar.nextFreeSlot(today + 63, 10) == today + 64 && !calendar.isOccupied(today + 1000);
+            boolean claimedOnce = calendar.tryOccupy(today + 200) && !calendar.tryOccupy(today + 200);
+
+            // Monday-only doctor: a search from Saturday reads across the week's wrap-around to Monday 09:00
+            Doctor mondayOnly = Doctor.builder().id("DOCCAL2").availableDays(Arrays.asList(DayOfWeek.MONDAY))
+                    .availableFrom(LocalTime.of(9, 0)).availableTo(LocalTime.of(17, 0)).build();
+            DoctorCalendar mondays = new DoctorCalendar();
+            mondays.syncWorkingHours(mondayOnly);
+            int saturday = SlotTime.of(LocalDateTime.now().with(TemporalAdjusters.next(DayOfWeek.SATURDAY)).toLocalDate().atStartOfDay());
+            int monday = mondays.nextFreeSlot(saturday, SlotTime.SLOTS_PER_WEEK);
+            boolean wraps = SlotTime.dayOfWeek(monday) == DayOfWeek.MONDAY && SlotTime.slotOfDay(monday) == 18
+                    && !mondays.isWorking(monday - 1) && !mondays.isWorking(monday + 16) && mondays.isWorking(monday + 15);
+
+            return acrossWords && windowEdge && grown && history && released && claimedOnce && wraps;
+        } catch (Exception e) { e.printStackTrace(); return false; }
+    }
+
     // --- PERSISTENCE TESTS ---
     private static boolean testSaveToCSV() {
         try {
@@ -341,6 +681,711 @@ public class TestRunner {
         } catch (Exception e) { e.printStackTrace(); return false; }
     }
 
+    private static boolean testJournalReplay() {
+        try {
+            Doctor d = Doctor.builder()
+                    .id("DOCWAL")
+                    .name("Dr. Journal")
+                    .age(33).gender(GENDER.FEMALE).address("Log Lane").contactNumber("1231231299").email("wal@test.com")
+                    .qualification("MD").yearsOfExperience(4).opdRoom("500").doctorType(DoctorType.NEUROLOGIST)
+                    .availableDays(Collections.singletonList(DayOfWeek.TUESDAY))
+                    .availableFrom(LocalTime.of(8, 0)).availableTo(LocalTime.of(12, 0))
+                    .build();
+            DataStore<Doctor> ds = new DataStore<>();
+
+            // An appended change must show up on load without rewriting the snapshot
+            ds.journal(d);
+            boolean added = DataStore.loadDoctors().stream().anyMatch(x -> x.getId().equals("DOCWAL"));
+
+            // A logged delete must hide it again
+            ds.journalDelete(d);
+            boolean removed = DataStore.loadDoctors().stream().noneMatch(x -> x.getId().equals("DOCWAL"));
+            return added && removed;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static boolean testDurableGroupCommitBookings() {
+        try {
+            // A journaled service: every booking returns only after its batch of log entries is forced
+            AppointmentService durable = new AppointmentService(doctorService, patientService);
+            durable.setAppointmentStore(new DataStore<>());
+
+            int threads = 16;
+            int bookingsPerThread = 16;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<List<String>>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        List<String> ids = new ArrayList<>();
+                        for (int i = 0; i < bookingsPerThread; i++) {
+                            // DOC004 - Dr. Night works around the clock, so 256 slots fit the search window
+                            ids.add(durable.bookAppointment("DOC004", "MRN9999", null).getAppointmentId());
+                        }
+                        return ids;
+                    }));
+                }
+                start.countDown();
+                Set<String> booked = new HashSet<>();
+                for (Future<List<String>> f : results) booked.addAll(f.get());
+
+                // Every returned booking must already be recoverable from the log
+                Set<String> recovered = new HashSet<>();
+                DataStore.loadAppointments().forEach(a -> recovered.add(a.getAppointmentId()));
+                return booked.size() == threads * bookingsPerThread && recovered.containsAll(booked);
+            } finally {
+                pool.shutdownNow();
+            }
+        } catch (Exception e) { e.printStackTrace(); return false; }
+    }
+
+    // Appointments keep doctor and patient as dense keys, yet every string-id view (builder, getters,
+    // serialization) and the key-indexed calendars behave as with string ids
+    private static boolean testIdDictionary() {
+        try {
+            IdDictionary dictionary = new IdDictionary();
+            int a = dictionary.keyOf("DOCA");
+            int b = dictionary.keyOf("DOCB");
+            boolean dense = a > 0 && b == a + 1 && dictionary.keyOf("DOCA") == a && dictionary.find("DOCC") == IdDictionary.NO_KEY
+                    && "DOCB".equals(dictionary.idOf(b)) && dictionary.keyOf(null) == IdDictionary.NO_KEY && dictionary.idOf(0) == null;
+
+            Appointment first = Appointment.builder().doctorId("DOC004").patientId("MRN9999")
+                    .timeSlot(LocalDateTime.now().plusDays(1)).build();
+            Appointment second = Appointment.builder().doctorId(new String("DOC004")).patientId("MRN9999").build();
+            boolean sameKeys = first.getDoctorKey() == second.getDoctorKey() && first.getPatientKey() == second.getPatientKey()
+                    && "DOC004".equals(first.getDoctorId()) && "MRN9999".equals(second.getPatientId());
+
+            java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+            try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(bytes)) {
+                out.writeObject(first);
+            }
+            Appointment copy;
+            try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(new java.io.ByteArrayInputStream(bytes.toByteArray()))) {
+                copy = (Appointment) in.readObject();
+            }
+            boolean serialized = "DOC004".equals(copy.getDoctorId()) && copy.getDoctorKey() == first.getDoctorKey();
+
+            // DOC004 works around the clock: a taken slot pushes the next booking on, a cancel frees it again
+            AppointmentService keyed = new AppointmentService(doctorService, patientService);
+            LocalDateTime requested = LocalDateTime.now().plusDays(2).withHour(10).withMinute(0).withSecond(0).withNano(0);
+            Appointment booked = keyed.bookAppointment("DOC004", "MRN9999", requested);
+            Appointment pushed = keyed.bookAppointment("DOC004", "MRN9999", requested);
+            keyed.cancelAppointment(booked.getAppointmentId());
+            Appointment rebooked = keyed.bookAppointment("DOC004", "MRN9999", requested);
+            boolean calendars = pushed.getTimeSlot().isAfter(booked.getTimeSlot())
+                    && rebooked.getTimeSlot().equals(booked.getTimeSlot());
+            return dense && sameKeys && serialized && calendars;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Finders answer a miss with an empty Optional; the Searchable methods still throw, without a stack trace
+    private static boolean testOptionalFinders() {
+        try {
+            boolean finders = doctorService.findById("DOC004").isPresent() && doctorService.findById("DOCNONE").isEmpty()
+                    && doctorService.findById(null).isEmpty() && doctorService.findByName("dr. night").isPresent()
+                    && patientService.findById("MRN404404").isEmpty() && patientService.findByName("Nobody At All").isEmpty();
+            try {
+                doctorService.SearchById("DOCNONE");
+                return false;
+            } catch (com.airtribe.meditrack.exception.DoctorNotFoundException e) {
+                return finders && e.getStackTrace().length == 0 && e.getMessage().contains("DOCNONE");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // The hand-written scanners must agree with the patterns they replace, and a bulk run reports every bad record
+    private static boolean testBulkValidation() {
+        String[] samples = {"", " ", "a@b", "john.doe@example.com", "a+b_c@x-y.z", "@x.com", "a@", "a@@b", "a@b_c", "a b@c",
+                "9876543210", "123456789012345", "1234567890123456", "98765abcde", "MRN123", "MRN12345678X", "MRN1234567890",
+                "MRN_12", "mrn12é", "١٢٣٤٥٦٧٨٩٠", "x@y\n"};
+        for (String sample : samples) {
+            if (Validator.isValidEmail(sample) != sample.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")
+                    || Validator.isValidPhone(sample) != sample.matches("^[0-9]{10,15}$")
+                    || Validator.isValidMRN(sample) != sample.matches("^[A-Za-z0-9]{6,12}$")) {
+                System.out.print("[DEBUG] scanner disagrees on '" + sample + "' ");
+                return false;
+            }
+        }
+        // Enough records to take the parallel path; failures come back in record order
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            patients.add(Patient.builder().name("Bulk " + i).age(30).address("1 Road").contactNumber("9000000000")
+                    .email(i % 1000 == 7 ? "broken" : "bulk@test.com").gender(GENDER.FEMALE).mrn("MRNB" + i)
+                    .emergencyContact("9111111111").bloodGroup("O+").build());
+        }
+        com.airtribe.meditrack.util.ValidationReport report = new com.airtribe.meditrack.util.ValidationReport();
+        Validator.validateAll(patients, Validator::checkPatient, report);
+        boolean collected = report.checkedCount() == 5000 && report.getFailures().size() == 5
+                && report.getFailures().get(0).index() == 7 && report.getFailures().get(4).index() == 4007
+                && report.getFailures().get(0).message().equals("Invalid patient email");
+        boolean thrown = false;
+        try {
+            report.throwIfInvalid();
+        } catch (com.airtribe.meditrack.exception.InvalidDataException e) {
+            thrown = e.getMessage().startsWith("Invalid patient email");
+        }
+        // Reusing the report starts from a clean slate
+        Validator.validateAll(patients.subList(0, 5), Validator::checkPatient, report);
+        return collected && thrown && report.isValid() && report.checkedCount() == 5;
+    }
+
+    // Whole-word keyword matching with prefixes and weights; overlapping keywords are all found in one pass
+    private static boolean testSymptomMatcher() {
+        try {
+            SymptomMatcher bundled = SymptomMatcher.defaultMatcher();
+            boolean boundaries = bundled.rank("Heart pain").equals(List.of(DoctorType.CARDIOLOGIST))
+                    && bundled.rank("early fatigue").isEmpty()
+                    && bundled.rank("Chest pain").isEmpty()
+                    && bundled.rank("NEUROLOGICAL symptoms").equals(List.of(DoctorType.NEUROLOGIST))
+                    && bundled.rank("sore throat, ear-ache and a blood test").get(0) == DoctorType.OTOLARYNGOLOGIST;
+
+            SymptomMatcher custom = SymptomMatcher.load(new java.io.StringReader(String.join("\n",
+                    "# overlapping keywords", "he,DENTIST,1", "she,UROLOGIST,1", "hers,CARDIOLOGIST,5", "his*,PATHOLOGIST,1", "")));
+            // "ushers" holds she/he/hers, but none of them as a whole word
+            boolean overlaps = custom.size() == 4 && custom.rank("ushers").isEmpty()
+                    && custom.rank("she said hers, he said history").equals(List.of(
+                    DoctorType.CARDIOLOGIST, DoctorType.UROLOGIST, DoctorType.DENTIST, DoctorType.PATHOLOGIST));
+            try {
+                SymptomMatcher.load(new java.io.StringReader("rash,NOT_A_TYPE,1"));
+                return false;
+            } catch (com.airtribe.meditrack.exception.InvalidDataException expected) {
+                return boundaries && overlaps;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Symptom bookings spread over a specialty instead of all landing on its first doctor
+    private static boolean testDoctorSelection() {
+        try {
+            DoctorService doctors = new DoctorService();
+            PatientService patients = new PatientService();
+            List<Doctor> team = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                Doctor d = Doctor.builder().id("DOCSEL" + i).name("Dr. Skin " + i).age(40).gender(GENDER.FEMALE)
+                        .address("Clinic").contactNumber("555000000" + i).email("skin" + i + "@test.com")
+                        .doctorType(DoctorType.DERMATOLOGIST).qualification("MD").yearsOfExperience(10).opdRoom("50" + i)
+                        .availableDays(Arrays.asList(DayOfWeek.values())).availableFrom(LocalTime.of(9, 0)).availableTo(LocalTime.of(17, 0))
+                        .build();
+                doctors.addDoctor(d);
+                team.add(d);
+            }
+            patients.addPatient(Patient.builder().name("Selena").age(30).address("1 Road").contactNumber("9000000000")
+                    .email("selena@test.com").gender(GENDER.FEMALE).mrn("MRNSEL01").emergencyContact("9111111111").bloodGroup("O+").build());
+            AppointmentService bookings = new AppointmentService(doctors, patients);
+            com.airtribe.meditrack.util.DoctorLoadTracker load = doctors.getLoadTracker();
+
+            // Least loaded (the default): six bookings split two each
+            for (int i = 0; i < 6; i++) bookings.bookAppointment("itchy rash", "MRNSEL01", null);
+            boolean balanced = team.stream().allMatch(d -> load.bookings(IdDictionary.DOCTORS.keyOf(d.getId())) == 2);
+
+            // Round robin: three bookings, three different doctors
+            bookings.setDoctorSelection(com.airtribe.meditrack.util.DoctorLoadTracker.Policy.ROUND_ROBIN);
+            Set<String> turns = new HashSet<>();
+            for (int i = 0; i < 3; i++) turns.add(bookings.bookAppointment("rash", "MRNSEL01", null).getDoctorId());
+
+            // Earliest slot: fill DOCSEL1's next slots directly, then a symptom booking gets the soonest free slot anywhere
+            for (int i = 0; i < 4; i++) bookings.bookAppointment("DOCSEL1", "MRNSEL01", null);
+            bookings.setDoctorSelection(com.airtribe.meditrack.util.DoctorLoadTracker.Policy.EARLIEST_SLOT);
+            LocalDateTime soonest = team.stream().map(d -> bookings.bookAppointmentByAI(d.getId()))
+                    .min(LocalDateTime::compareTo).orElseThrow();
+            Appointment earliest = bookings.bookAppointment("skin rash", "MRNSEL01", null);
+
+            // A removed doctor is never chosen again; a cancellation lowers that doctor's count
+            doctors.removeDoctor(team.get(0));
+            bookings.setDoctorSelection(com.airtribe.meditrack.util.DoctorLoadTracker.Policy.LEAST_LOADED);
+            boolean removed = !bookings.bookAppointment("rash", "MRNSEL01", null).getDoctorId().equals("DOCSEL1");
+            int before = load.bookings(earliest.getDoctorKey());
+            bookings.cancelAppointment(earliest.getAppointmentId());
+            boolean released = load.bookings(earliest.getDoctorKey()) == before - 1;
+            return balanced && turns.size() == 3 && earliest.getTimeSlot().equals(soonest) && removed && released;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Phrasings no keyword covers still reach a specialty; text that says nothing stays under the threshold
+    private static boolean testSymptomClassifier() {
+        try {
+            SymptomClassifier bundled = SymptomClassifier.defaultClassifier();
+            double threshold = com.airtribe.meditrack.constants.Constants.SYMPTOM_CLASSIFIER_MIN_CONFIDENCE;
+            SymptomClassifier.Prediction chest = bundled.classify("my chest hurts a lot");
+            SymptomClassifier.Prediction tummy = bundled.classify("pain in my tummy");
+            boolean unseen = chest.type() == DoctorType.CARDIOLOGIST && chest.confidence() >= threshold
+                    && tummy.type() == DoctorType.GASTROENTEROLOGIST && tummy.confidence() >= threshold;
+            boolean unsure = bundled.classify("asdf qwer").confidence() < threshold
+                    && bundled.classify("I want to book").confidence() < threshold
+                    && bundled.classify("?!").confidence() == 0;
+
+            SymptomClassifier custom = SymptomClassifier.train(new java.io.StringReader(String.join("\n",
+                    "# two specialties", "dentist,aching molar", "dentist,molar cavity", "urologist,kidney stones", "")));
+            boolean trained = custom.exampleCount() == 3
+                    && custom.classify("cavity in a molar").type() == DoctorType.DENTIST
+                    && custom.classify("stones in the kidney").type() == DoctorType.UROLOGIST;
+            try {
+                SymptomClassifier.train(new java.io.StringReader("no comma here"));
+                return false;
+            } catch (com.airtribe.meditrack.exception.InvalidDataException expected) {
+                return unseen && unsure && trained;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Slot numbers round-trip through LocalDateTime and round the way the booking path always has
+    private static boolean testSlotTime() {
+        try {
+            LocalDateTime wed = LocalDateTime.of(2025, 12, 17, 10, 0);
+            int slot = SlotTime.of(wed);
+            boolean conversions = SlotTime.toDateTime(slot).equals(wed)
+                    && SlotTime.of(wed.plusMinutes(29)) == slot && SlotTime.of(wed.plusMinutes(30)) == slot + 1
+                    && SlotTime.of(LocalDateTime.of(1969, 12, 31, 23, 45)) == -1
+                    && SlotTime.dayOfWeek(slot) == DayOfWeek.WEDNESDAY && SlotTime.slotOfDay(slot) == 20;
+            boolean rounding = SlotTime.ceil(wed) == slot && SlotTime.ceil(wed.plusSeconds(1)) == slot + 1
+                    && SlotTime.roundUp(wed.plusSeconds(45)) == slot
+                    && DateUtil.roundToNextSlot(LocalDateTime.of(2025, 12, 17, 10, 12)).equals(LocalDateTime.of(2025, 12, 17, 10, 30))
+                    && DateUtil.roundToNextSlot(LocalDateTime.of(2025, 12, 17, 23, 45)).equals(LocalDateTime.of(2025, 12, 18, 0, 0));
+            // A shift running to LocalTime.MAX fits the last slot of the day, but not one that would wrap past midnight
+            boolean ranges = DateUtil.isTimeWithinRange(LocalTime.of(23, 30), LocalTime.of(9, 0), LocalTime.MAX)
+                    && !DateUtil.isTimeWithinRange(LocalTime.of(23, 45), LocalTime.of(9, 0), LocalTime.MAX)
+                    && DateUtil.isTimeWithinRange(LocalTime.of(16, 30), LocalTime.of(9, 0), LocalTime.of(17, 0))
+                    && !DateUtil.isTimeWithinRange(LocalTime.of(16, 31), LocalTime.of(9, 0), LocalTime.of(17, 0));
+            return conversions && rounding && ranges && SlotTime.next() > SlotTime.of(LocalDateTime.now().minusMinutes(1));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static boolean testParallelCsvLoader() {
+        java.nio.file.Path file = null;
+        try {
+            // Quoted commas, doubled quotes and embedded newlines must never be split across chunks
+            file = java.nio.file.Files.createTempFile("meditrack-loader", ".csv");
+            List<String[]> expected = new ArrayList<>();
+            try (java.io.Writer w = java.nio.file.Files.newBufferedWriter(file);
+                 org.apache.commons.csv.CSVPrinter printer = new org.apache.commons.csv.CSVPrinter(w,
+                         org.apache.commons.csv.CSVFormat.DEFAULT.withHeader("note", "id"))) {
+                for (int i = 0; i < 5000; i++) {
+                    String note = i % 3 == 0 ? "line one\nline \"two\", ok" : (i % 3 == 1 ? "plain " + i : "");
+                    // Escapes at both edges of a field longer than the reader's scratch buffer
+                    if (i % 7 == 0) note = "\"" + "\u00e9".repeat(i % 200) + "\"\"";
+                    printer.printRecord(note, "ID" + i);
+                    expected.add(new String[]{"ID" + i, note});
+                }
+            }
+            // Tiny chunks force many boundaries; columns come back in the requested order
+            List<String[]> rows = ParallelCSVLoader.load(file, new String[]{"id", "note"}, fields -> fields, 512);
+            if (rows.size() != expected.size()) return false;
+            for (int i = 0; i < rows.size(); i++) {
+                if (!Arrays.equals(rows.get(i), expected.get(i))) return false;
+            }
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (file != null) file.toFile().delete();
+        }
+    }
+
+    private static boolean testBinarySnapshotRoundTrip() {
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("meditrack-snapshot");
+            List<Doctor> doctors = List.of(Doctor.builder()
+                    .id("DOCBIN").name("Dr. Binary, Jr.").age(50).gender(GENDER.MALE).address("Byte St").contactNumber("5551112222")
+                    .email("bin@test.com").doctorType(DoctorType.CARDIOLOGIST).qualification("MD").yearsOfExperience(20).opdRoom("101")
+                    .availableDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.FRIDAY))
+                    .availableFrom(LocalTime.MIN).availableTo(LocalTime.MAX).build());
+            List<Patient> patients = List.of(Patient.builder()
+                    .id("PBIN").name("Zoë \"Quotes\"").age(28).gender(GENDER.FEMALE).address("Line 1\nLine 2").contactNumber("5553334444")
+                    .email("z@test.com").mrn("MRNBIN1").emergencyContact("5559990000").bloodGroup("AB+")
+                    .knownAllergies(Arrays.asList("Dust", "Pollen")).chronicConditions(new ArrayList<>())
+                    .currentMedications(Collections.singletonList("Dust")).build());
+            List<Appointment> appointments = List.of(Appointment.builder()
+                    .appointmentId("APPBIN").doctorId("DOCBIN").patientId("MRNBIN1")
+                    .timeSlot(LocalDateTime.of(2030, 1, 7, 9, 30)).status(AppointmentStatus.CANCELLED).build());
+
+            java.nio.file.Path doctorFile = dir.resolve("d.bin");
+            java.nio.file.Path patientFile = dir.resolve("p.bin");
+            java.nio.file.Path appointmentFile = dir.resolve("a.bin");
+            BinarySnapshot.writeDoctors(doctorFile, doctors);
+            BinarySnapshot.writePatients(patientFile, patients);
+            BinarySnapshot.writeAppointments(appointmentFile, appointments);
+
+            // Every stored column must survive the trip unchanged, including LocalTime.MAX
+            return Arrays.deepEquals(CSVUtil.toRow(doctors.get(0)), CSVUtil.toRow(BinarySnapshot.readDoctors(doctorFile).get(0)))
+                    && Arrays.deepEquals(CSVUtil.toRow(patients.get(0)), CSVUtil.toRow(BinarySnapshot.readPatients(patientFile).get(0)))
+                    && Arrays.deepEquals(CSVUtil.toRow(appointments.get(0)), CSVUtil.toRow(BinarySnapshot.readAppointments(appointmentFile).get(0)));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (dir != null) {
+                for (java.io.File f : dir.toFile().listFiles()) f.delete();
+                dir.toFile().delete();
+            }
+        }
+    }
+
+    private static boolean testIncrementalFlush() {
+        try {
+            DoctorService tracked = new DoctorService();
+            DataStore<Doctor> ds = new DataStore<>(Doctor.class);
+            Doctor d = Doctor.builder()
+                    .id("DOCDIRTY")
+                    .name("Dr. Delta")
+                    .age(45).gender(GENDER.MALE).address("Diff Rd").contactNumber("1231231288").email("delta@test.com")
+                    .qualification("MD").yearsOfExperience(9).opdRoom("501").doctorType(DoctorType.PULMONOLOGIST)
+                    .availableDays(Collections.singletonList(DayOfWeek.WEDNESDAY))
+                    .availableFrom(LocalTime.of(10, 0)).availableTo(LocalTime.of(14, 0))
+                    .build();
+
+            // Only the one dirty doctor is written, and a second flush has nothing left to do
+            tracked.addDoctor(d);
+            boolean added = ds.flush(tracked.getChangeTracker()) == 1
+                    && ds.flush(tracked.getChangeTracker()) == 0
+                    && DataStore.loadDoctors().stream().anyMatch(x -> x.getId().equals("DOCDIRTY"));
+
+            // Deletions are tracked too
+            tracked.removeDoctor(d);
+            boolean removed = ds.flush(tracked.getChangeTracker()) == 1
+                    && DataStore.loadDoctors().stream().noneMatch(x -> x.getId().equals("DOCDIRTY"));
+            return added && removed;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static boolean testAtomicSnapshotWrite() {
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("meditrack-atomic");
+            java.nio.file.Path file = dir.resolve("doctor_data.csv");
+            CSVUtil.writeDoctorsToCSV(new ArrayList<>(doctorService.getDoctors()), file);
+            int before = CSVUtil.readDoctorsFromCSV(file).size();
+
+            // A writer that dies halfway must leave the previous snapshot untouched and no temp file behind
+            try {
+                SafeFileWriter.write(file, channel -> {
+                    channel.write(java.nio.ByteBuffer.wrap("id,name\nhalf".getBytes()));
+                    throw new java.io.IOException("simulated crash");
+                });
+                return false;
+            } catch (java.io.IOException expected) {
+                // expected
+            }
+            String[] left = dir.toFile().list();
+            return before > 0 && CSVUtil.readDoctorsFromCSV(file).size() == before && left != null && left.length == 1;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (dir != null) {
+                for (java.io.File f : dir.toFile().listFiles()) f.delete();
+                dir.toFile().delete();
+            }
+        }
+    }
+
+    private static boolean testFlushSchedulerCoalesces() {
+        try {
+            java.util.concurrent.atomic.AtomicInteger flushes = new java.util.concurrent.atomic.AtomicInteger();
+            FlushScheduler scheduler = new FlushScheduler("test-flush", flushes::incrementAndGet, 200, 1000);
+
+            // A burst of requests inside the delay window must collapse into one background flush
+            for (int i = 0; i < 100; i++) scheduler.requestFlush();
+            Thread.sleep(600);
+            int afterBurst = flushes.get();
+
+            // close() always runs one final flush, and only once
+            scheduler.close();
+            scheduler.close();
+            return afterBurst == 1 && flushes.get() == 2;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static boolean testStreamingExportImport() {
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("meditrack-stream");
+            java.nio.file.Path file = dir.resolve("patient_data.csv");
+            int count = 60_000;
+
+            // Export straight from a generator: no list of patients is ever built
+            java.util.stream.Stream<Patient> generated = java.util.stream.IntStream.range(0, count)
+                    .mapToObj(i -> Patient.builder().id("P" + i).name("Stream, \"" + i + "\"").age(i % 90)
+                            .gender(GENDER.FEMALE).address("Line 1\nLine 2").contactNumber("9700000000")
+                            .email("s" + i + "@test.com").mrn("MRNS" + String.format("%06d", i)).emergencyContact("9900000000")
+                            .bloodGroup("O+").knownAllergies(List.of("Dust")).chronicConditions(new ArrayList<>())
+                            .currentMedications(new ArrayList<>()).build());
+            CSVUtil.writePatientsToCSV(generated::iterator, file);
+
+            // Sequential and parallel streaming reads see every row, quotes and newlines intact
+            long ageSum;
+            long sequentialRows;
+            try (java.util.stream.Stream<Patient> rows = CSVUtil.streamPatients(file)) {
+                ageSum = rows.parallel().mapToLong(Patient::getAge).sum();
+            }
+            try (java.util.stream.Stream<Patient> rows = CSVUtil.streamPatients(file)) {
+                sequentialRows = rows.filter(p -> p.getAddress().equals("Line 1\nLine 2")
+                        && p.getName().equals("Stream, \"" + p.getId().substring(1) + "\"")).count();
+            }
+            long expectedAges = java.util.stream.IntStream.range(0, count).mapToLong(i -> i % 90).sum();
+
+            // Loading into a service goes through its bulk loader, with the same result as the set-based load
+            DoctorService fresh = new DoctorService();
+            DataStore.loadDoctors(fresh.bulkLoader());
+            Set<String> loaded = new HashSet<>();
+            DataStore.loadDoctors().forEach(d -> loaded.add(d.getId()));
+            Set<String> streamed = new HashSet<>();
+            fresh.getDoctors().forEach(d -> streamed.add(d.getId()));
+
+            return ageSum == expectedAges && sequentialRows == count && !loaded.isEmpty() && loaded.equals(streamed)
+                    && fresh.getChangeTracker().size() == 0;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (dir != null) {
+                for (java.io.File f : dir.toFile().listFiles()) f.delete();
+                dir.toFile().delete();
+            }
+        }
+    }
+
+    private static boolean testStringPool() {
+        java.nio.file.Path file = null;
+        try {
+            file = java.nio.file.Files.createTempFile("meditrack-pool", ".csv");
+            List<Patient> written = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                written.add(Patient.builder().id("PPOOL" + i).name("Pool " + i).age(40).gender(GENDER.MALE)
+                        .address("1 Shared Lane").contactNumber("9700000000").email("pool@test.com").mrn("MRNPOOL" + i)
+                        .emergencyContact("9900000000").bloodGroup("B+").knownAllergies(Arrays.asList("Dust", "Pollen"))
+                        .chronicConditions(new ArrayList<>()).currentMedications(new ArrayList<>()).build());
+            }
+            CSVUtil.writePatientsToCSV(written, file);
+            List<Patient> loaded = CSVUtil.readPatientsFromCSV(file);
+            Patient a = loaded.get(0);
+            Patient b = loaded.get(1);
+
+            // Repeated column values and identical lists are one instance; pooled lists are read-only
+            boolean shared = a.getBloodGroup() == b.getBloodGroup() && a.getAddress() == b.getAddress()
+                    && a.getKnownAllergies() == b.getKnownAllergies() && a.getChronicConditions() == b.getChronicConditions();
+            boolean immutable;
+            try {
+                a.getKnownAllergies().add("Peanuts");
+                immutable = false;
+            } catch (UnsupportedOperationException expected) {
+                immutable = true;
+            }
+
+            // A full pool passes unseen values through instead of growing
+            StringPool bounded = new StringPool(2);
+            bounded.intern("A");
+            bounded.intern("B");
+            String c = new String("C");
+            boolean capped = bounded.intern(c) == c && bounded.size() == 2;
+            return shared && immutable && capped && a.getKnownAllergies().equals(List.of("Dust", "Pollen"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (file != null) file.toFile().delete();
+        }
+    }
+
+    private static boolean testStorageBackends() {
+        for (String name : new String[]{"csv", "binary", "jsonl"}) {
+            java.nio.file.Path dir = null;
+            try {
+                dir = java.nio.file.Files.createTempDirectory("meditrack-backend");
+                List<Patient> patients = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    patients.add(Patient.builder().id("PB" + i).name("Back \"End\", " + i).age(30 + i).gender(GENDER.FEMALE)
+                            .address("Line 1\nLine 2").contactNumber("9700000000").email("b@test.com").mrn("MRNBACK" + i)
+                            .emergencyContact("9900000000").bloodGroup("A-").knownAllergies(Arrays.asList("Dust", "Pollen"))
+                            .chronicConditions(new ArrayList<>()).currentMedications(new ArrayList<>()).build());
+                }
+                Patient edited = patients.get(1);
+                com.airtribe.meditrack.interfaces.StorageBackend backend =
+                        com.airtribe.meditrack.util.StorageBackends.create(name, dir);
+                try {
+                    // Snapshot, then a delta on top: one edit and one delete
+                    backend.snapshot(Patient.class, patients);
+                    edited.setAge(77);
+                    backend.saveDelta(Patient.class, List.of(
+                            new ChangeTracker.Change<>(ChangeTracker.Op.UPSERT, edited.getMrn(), edited),
+                            new ChangeTracker.Change<>(ChangeTracker.Op.DELETE, "MRNBACK2", patients.get(2))));
+
+                    PatientService loaded = new PatientService();
+                    backend.load(Patient.class, loaded.bulkLoader());
+                    Patient back = (Patient) loaded.SearchById("MRNBACK1");
+                    long streamed;
+                    try (java.util.stream.Stream<Patient> rows = backend.stream(Patient.class)) {
+                        streamed = rows.filter(p -> p.getName().startsWith("Back \"End\", ")).count();
+                    }
+                    boolean ok = backend.name().equals(name) && loaded.getPatients().size() == 2 && back.getAge() == 77
+                            && back.getAddress().equals("Line 1\nLine 2") && back.getKnownAllergies().equals(List.of("Dust", "Pollen"))
+                            && streamed == 3 && backend.deltaSize(Patient.class) == 2;
+                    if (!ok) return false;
+                } finally {
+                    backend.close();
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                return false;
+            } finally {
+                if (dir != null) {
+                    for (java.io.File f : dir.toFile().listFiles()) f.delete();
+                    dir.toFile().delete();
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean testDiskPatientStore() {
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("meditrack-disk");
+            java.nio.file.Path base = dir.resolve("patients");
+            int count = 3000;
+            try (DiskPatientStore store = new DiskPatientStore(base, 100)) {
+                PatientService service = new PatientService();
+                service.useDiskStore(store);
+                for (int i = 0; i < count; i++) {
+                    service.addPatient(Patient.builder().id("PD" + i).name("Disk, Patient " + i).age(20 + i % 60)
+                            .gender(GENDER.MALE).address("Ward " + i % 7).contactNumber("9600000000").email("d@test.com")
+                            .mrn("MRNDISK" + i).emergencyContact("9900000000").bloodGroup("O+")
+                            .knownAllergies(List.of("Dust")).chronicConditions(List.of()).currentMedications(List.of()).build());
+                }
+                // Cold lookups page records in from disk; repeated lookups hit the same cached instance
+                Patient cold = (Patient) service.SearchById("mrndisk42");
+                boolean cached = service.SearchById("MRNDISK42") == cold;
+                service.updatePatient("MRNDISK7", "{\"name\":\"Edited\",\"age\":70,\"address\":\"Ward 1\",\"contactNumber\":\"9600000000\","
+                        + "\"email\":\"d@test.com\",\"gender\":\"MALE\",\"mrn\":\"MRNDISK7\",\"emergencyContact\":\"9900000000\","
+                        + "\"bloodGroup\":\"B+\",\"knownAllergies\":[],\"chronicConditions\":[],\"currentMedications\":[]}");
+                service.deletePatient("MRNDISK8");
+                boolean ok = cached && cold.getName().equals("Disk, Patient 42") && cold.getKnownAllergies().equals(List.of("Dust"))
+                        && store.hotSize() <= 100 && service.patientCount() == count - 1
+                        && service.SearchByAge(79) != null;
+                if (!ok) return false;
+            }
+            // Reopened cleanly, then again after losing the index: both come back from the data file
+            for (int round = 0; round < 2; round++) {
+                if (round == 1) java.nio.file.Files.delete(dir.resolve("patients.idx"));
+                try (DiskPatientStore store = new DiskPatientStore(base, 100)) {
+                    Patient edited = store.get("MRNDISK7");
+                    boolean ok = store.size() == count - 1 && store.get("MRNDISK8") == null && edited.getName().equals("Edited")
+                            && edited.getAge() == 70 && store.get("MRNDISK2999").getName().equals("Disk, Patient 2999");
+                    if (!ok) return false;
+                }
+            }
+            // Compaction drops superseded records but keeps every live one
+            try (DiskPatientStore store = new DiskPatientStore(base, 100)) {
+                Patient p = store.get("MRNDISK1");
+                for (int i = 0; i < 50; i++) {
+                    p.setAge(1 + i);
+                    store.put(p);
+                }
+                long before = store.dataFileSize();
+                store.compact();
+                int[] seen = {0};
+                store.forEach(x -> seen[0]++);
+                return store.dataFileSize() < before && seen[0] == count - 1 && store.get("MRNDISK1").getAge() == 50
+                        && store.get("MRNDISK0") != null;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (dir != null) {
+                for (java.io.File f : dir.toFile().listFiles()) f.delete();
+                dir.toFile().delete();
+            }
+        }
+    }
+
+    private static boolean testLazyPatientHydration() {
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("meditrack-lazy");
+            List<Patient> patients = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                patients.add(Patient.builder().id("PL" + i).name("Lazy, \"Patient\" " + i).age(25).gender(GENDER.FEMALE)
+                        .address("Block " + i + "\nSecond line").contactNumber("9500000000").email("l@test.com").mrn("MRNLAZY" + i)
+                        .emergencyContact("9900000000").bloodGroup("AB+").knownAllergies(List.of("Latex"))
+                        .chronicConditions(List.of()).currentMedications(List.of()).build());
+            }
+            com.airtribe.meditrack.interfaces.StorageBackend backend =
+                    com.airtribe.meditrack.util.StorageBackends.create("csv", dir);
+            try {
+                backend.snapshot(Patient.class, patients);
+                Patient edited = patients.get(3);
+                edited.setAge(61);
+                backend.saveDelta(Patient.class, List.of(
+                        new ChangeTracker.Change<>(ChangeTracker.Op.UPSERT, edited.getMrn(), edited),
+                        new ChangeTracker.Change<>(ChangeTracker.Op.DELETE, "MRNLAZY4", patients.get(4))));
+
+                PatientService service = new PatientService();
+                backend.loadDelta(Patient.class, service.lazyLoader(PatientRowIndex.scan(dir.resolve("patient_data.csv"))));
+                boolean indexed = service.patientCount() == 499 && service.hasUnloadedPatients();
+
+                // First access parses the row; later ones get the cached instance
+                Patient first = (Patient) service.SearchById("mrnlazy250");
+                boolean cached = service.SearchById("MRNLAZY250") == first;
+                boolean parsed = first.getName().equals("Lazy, \"Patient\" 250") && first.getAddress().equals("Block 250\nSecond line")
+                        && first.getKnownAllergies().equals(List.of("Latex"));
+                boolean replayed = ((Patient) service.SearchById("MRNLAZY3")).getAge() == 61;
+                boolean deleted;
+                try {
+                    service.SearchById("MRNLAZY4");
+                    deleted = false;
+                } catch (com.airtribe.meditrack.exception.PatientNotFoundException e) {
+                    deleted = true;
+                }
+                boolean byName = service.SearchByName("lazy, \"patient\" 499").getId().equals("PL499");
+                boolean stillLazy = service.hasUnloadedPatients() && service.patientCount() == 499;
+                // Anything needing every patient hydrates the rest
+                boolean all = service.getPatients().size() == 499 && !service.hasUnloadedPatients();
+                return indexed && cached && parsed && replayed && deleted && byName && stillLazy && all;
+            } finally {
+                backend.close();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (dir != null) {
+                for (java.io.File f : dir.toFile().listFiles()) f.delete();
+                dir.toFile().delete();
+            }
+        }
+    }
+
     // =================================================================
     // HELPER METHODS
     // =================================================================